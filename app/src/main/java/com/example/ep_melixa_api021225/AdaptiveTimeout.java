@@ -0,0 +1,52 @@
+package com.example.ep_melixa_api021225;
+
+/**
+ * Timeout que se ajusta a la latencia observada
+ *
+ * Sigue la latencia con un promedio móvil y su desvío (como el RTO de TCP):
+ * timeout = promedio + 4 * desvío, entre minMillis y maxMillis. Sin
+ * muestras usa maxMillis. Así, si el servidor suele responder en 300 ms,
+ * una llamada colgada se corta en un par de segundos y no en 10.
+ */
+public class AdaptiveTimeout {
+
+    private final int minMillis;
+    private final int maxMillis;
+
+    // Promedio y desvío en ms; < 0 hasta la primera muestra
+    private double average = -1;
+    private double deviation;
+
+    public AdaptiveTimeout(int minMillis, int maxMillis) {
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    public synchronized void record(long millis) {
+        if (average < 0) {
+            average = millis;
+            deviation = millis / 2.0;
+            return;
+        }
+        deviation = 0.75 * deviation + 0.25 * Math.abs(average - millis);
+        average = 0.875 * average + 0.125 * millis;
+    }
+
+    /**
+     * Después de un timeout: no bajar más hasta tener muestras nuevas
+     */
+    public synchronized void onTimeout() {
+        if (average >= 0) {
+            // Como el backoff del RTO: duplica la estimación
+            average = Math.min(average * 2, maxMillis);
+        }
+    }
+
+    public synchronized int getMillis() {
+        if (average < 0) {
+            return maxMillis;
+        }
+        long timeout = Math.round(average + 4 * deviation);
+        return (int) Math.max(minMillis, Math.min(maxMillis, timeout));
+    }
+}
@@ -0,0 +1,568 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cliente HTTP compartido para la API FakeStores
+ *
+ * Una sola instancia de larga vida para toda la app: las conexiones se
+ * mantienen vivas (keep-alive) y se reutilizan desde el pool del sistema,
+ * así una mutación y la recarga que le sigue no vuelven a pagar TCP + TLS.
+ *
+ * Para que una conexión vuelva al pool hay que leer la respuesta completa
+ * y cerrar el stream; nunca se llama a disconnect().
+ *
+ * Resiliencia: GET, PUT y DELETE se reintentan con backoff exponencial con
+ * jitter si fallan antes de recibir la respuesta (red, timeout, 5xx, 408,
+ * 429); POST no, porque podría crear el producto dos veces. Los timeouts
+ * se ajustan a la latencia observada por operación y un CircuitBreaker
+ * corta las llamadas mientras la API no responde.
+ *
+ * Compresión: se pide gzip (Accept-Encoding) y la respuesta se descomprime
+ * mientras se lee, sin cargarla entera. Los cuerpos grandes que se envían
+ * se pueden comprimir con setRequestCompression() si el servidor lo acepta.
+ */
+public class ApiClient {
+
+    // URL Base de la API FakeStores
+    public static final String DEFAULT_BASE_URL = "https://fakestores.vercel.app/api";
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;  // ms
+    public static final int DEFAULT_READ_TIMEOUT = 10000;     // ms
+    public static final int DEFAULT_THREADS = 3;
+
+    // Reintentos: intentos totales y espera base/máxima antes de cada uno
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_RETRY_DELAY = 250;     // ms
+    public static final long DEFAULT_MAX_RETRY_DELAY = 2000; // ms
+
+    // Cuerpos más chicos no se comprimen: el encabezado gzip no se justifica
+    static final int MIN_COMPRESSED_BODY = 1024;   // bytes
+
+    // Piso de los timeouts adaptativos
+    static final int MIN_CONNECT_TIMEOUT = 3000;    // ms
+    static final int MIN_READ_TIMEOUT = 2000;       // ms
+
+    private static ApiClient instance;
+    private static String sharedBaseUrl = DEFAULT_BASE_URL;
+
+    private final String baseUrl;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final TaskScheduler scheduler;
+    private final ApiMetrics metrics = new ApiMetrics();
+    private final AdaptiveTimeout connectTimeouts;
+    private final AdaptiveTimeout[] readTimeouts;
+
+    private volatile CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile long retryDelay = DEFAULT_RETRY_DELAY;
+    private volatile long maxRetryDelay = DEFAULT_MAX_RETRY_DELAY;
+    private volatile boolean compressRequests;
+
+    // ========== CONSTRUCTORES ==========
+
+    /**
+     * Constructor con la configuración por defecto
+     */
+    public ApiClient(String baseUrl) {
+        this(baseUrl, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_THREADS);
+    }
+
+    /**
+     * Constructor completo
+     * Permite ajustar timeouts y cantidad de hilos
+     *
+     * El pool de conexiones es el de HttpURLConnection (keep-alive ya activo
+     * por defecto) y se comparte con todo el proceso; su tamaño
+     * (http.maxConnections) no se toca desde acá.
+     */
+    public ApiClient(String baseUrl, int connectTimeout, int readTimeout, int threads) {
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            throw new IllegalArgumentException("La URL base no puede estar vacía");
+        }
+        this.baseUrl = trimSlash(baseUrl);
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.scheduler = new TaskScheduler(threads, "api");
+        this.connectTimeouts = new AdaptiveTimeout(Math.min(MIN_CONNECT_TIMEOUT, connectTimeout), connectTimeout);
+        this.readTimeouts = new AdaptiveTimeout[ApiMetrics.Operation.values().length];
+        for (int i = 0; i < readTimeouts.length; i++) {
+            readTimeouts[i] = new AdaptiveTimeout(Math.min(MIN_READ_TIMEOUT, readTimeout), readTimeout);
+        }
+    }
+
+    /**
+     * Instancia compartida por toda la app
+     */
+    public static synchronized ApiClient getInstance() {
+        if (instance == null) {
+            instance = new ApiClient(sharedBaseUrl);
+        }
+        return instance;
+    }
+
+    /**
+     * URL base de la instancia compartida (la app usa BuildConfig.API_BASE_URL)
+     * Debe llamarse antes de crearla; después solo se acepta la misma URL.
+     */
+    public static synchronized void configure(String baseUrl) {
+        if (instance != null && !instance.baseUrl.equals(trimSlash(baseUrl))) {
+            throw new IllegalStateException("El ApiClient compartido ya usa " + instance.baseUrl);
+        }
+        sharedBaseUrl = baseUrl;
+    }
+
+    // ========== PETICIONES ==========
+
+    /**
+     * Procesa el cuerpo de la respuesta directamente desde el stream
+     */
+    public interface ResponseHandler<T> {
+        /**
+         * @param code código HTTP
+         * @param body cuerpo de la respuesta (error stream si code >= 400), puede ser null
+         * @param conn conexión, para leer encabezados de la respuesta
+         */
+        T handle(int code, InputStream body, HttpURLConnection conn) throws IOException;
+    }
+
+    /**
+     * Ejecuta una petición y lee la respuesta completa
+     *
+     * @param method GET, POST, PUT o DELETE
+     * @param path   ruta relativa a la URL base, por ejemplo "/products"
+     * @param body   cuerpo JSON a enviar, o null si no lleva cuerpo
+     */
+    public Response execute(String method, String path, String body) throws IOException {
+        return execute(method, path, body, new ResponseHandler<Response>() {
+            @Override
+            public Response handle(int code, InputStream in, HttpURLConnection conn) throws IOException {
+                return new Response(code, in != null ? readFully(in) : "");
+            }
+        });
+    }
+
+    /**
+     * Ejecuta una petición y entrega el stream de la respuesta al handler
+     * Lo que el handler no lea se descarta para devolver la conexión al pool
+     */
+    public <T> T execute(String method, String path, String body,
+                         ResponseHandler<T> handler) throws IOException {
+        return execute(method, path, body, null, handler);
+    }
+
+    /**
+     * Igual que el anterior, con encabezados adicionales para la petición
+     *
+     * Los reintentos solo ocurren antes de llamar al handler: una respuesta
+     * que ya empezó a procesarse (por ejemplo un catálogo por streaming)
+     * nunca se repite.
+     *
+     * @throws CircuitBreaker.OpenException si la API está marcada como caída
+     */
+    public <T> T execute(String method, String path, String body, Map<String, String> headers,
+                         ResponseHandler<T> handler) throws IOException {
+        ApiMetrics.Operation operation = ApiMetrics.Operation.of(method);
+        boolean idempotent = operation != ApiMetrics.Operation.POST;
+        CircuitBreaker breaker = circuitBreaker;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                breaker.acquire();
+            } catch (CircuitBreaker.OpenException e) {
+                metrics.recordError(operation, ApiMetrics.ErrorCause.CIRCUIT_OPEN);
+                throw e;
+            }
+            boolean canRetry = idempotent && attempt < maxAttempts;
+            try {
+                return executeOnce(operation, method, path, body, headers, handler, canRetry);
+            } catch (RetryException e) {
+                metrics.recordRetry(operation);
+                sleep(retryDelay(attempt));
+            }
+        }
+    }
+
+    /**
+     * Un intento; lanza RetryException si falló antes de la respuesta y se puede repetir
+     *
+     * Registra en getMetrics() la duración de cada fase, los bytes y los
+     * errores. El handler recibe el stream medido: el tiempo bloqueado en
+     * read() cuenta como descarga y el resto del handler como parseo.
+     */
+    private <T> T executeOnce(ApiMetrics.Operation operation, String method, String path, String body,
+                              Map<String, String> headers, ResponseHandler<T> handler,
+                              boolean canRetry) throws IOException {
+        CircuitBreaker breaker = circuitBreaker;
+        AdaptiveTimeout readTimeouts = this.readTimeouts[operation.ordinal()];
+        long start = System.nanoTime();
+        HttpURLConnection conn = openConnection(method, path);
+        conn.setConnectTimeout(connectTimeouts.getMillis());
+        conn.setReadTimeout(readTimeouts.getMillis());
+        ApiMetrics.MeteredInputStream in = null;
+        long sent = 0;
+        boolean connected = false;
+        boolean handling = false;
+
+        try {
+            if (headers != null) {
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    conn.setRequestProperty(header.getKey(), header.getValue());
+                }
+            }
+
+            byte[] bytes = null;
+            if (body != null) {
+                conn.setDoOutput(true);
+                bytes = body.getBytes(StandardCharsets.UTF_8);
+                if (compressRequests && bytes.length >= MIN_COMPRESSED_BODY) {
+                    bytes = gzip(bytes);
+                    conn.setRequestProperty("Content-Encoding", "gzip");
+                }
+                conn.setFixedLengthStreamingMode(bytes.length);
+            }
+            // Conectar aparte para medir cuánto cuesta (casi nada si se reutiliza)
+            conn.connect();
+            long connectedAt = System.nanoTime();
+            connected = true;
+            metrics.recordPhase(operation, ApiMetrics.Phase.CONNECT, connectedAt - start);
+            connectTimeouts.record((connectedAt - start) / 1000000);
+
+            if (bytes != null) {
+                OutputStream os = conn.getOutputStream();
+                try {
+                    os.write(bytes);
+                } finally {
+                    os.close();
+                }
+                sent = bytes.length;
+            }
+
+            int code = conn.getResponseCode();
+            long firstByte = System.nanoTime();
+            metrics.recordPhase(operation, ApiMetrics.Phase.FIRST_BYTE, firstByte - connectedAt);
+            metrics.recordStatus(operation, code);
+            readTimeouts.record((firstByte - connectedAt) / 1000000);
+
+            InputStream stream = code >= HttpURLConnection.HTTP_BAD_REQUEST ? conn.getErrorStream() : conn.getInputStream();
+            in = stream != null ? new ApiMetrics.MeteredInputStream(stream) : null;
+            if (code >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            if (canRetry && isRetryableStatus(code)) {
+                drain(in);
+                throw new RetryException(new ApiException(code, "Respuesta para reintentar"));
+            }
+
+            // El stream medido queda debajo: cuenta los bytes que viajaron comprimidos
+            InputStream content = in;
+            if (in != null && "gzip".equalsIgnoreCase(conn.getContentEncoding())) {
+                content = new GzipBody(in);
+            }
+
+            handling = true;
+            T result = handler.handle(code, content, conn);
+            drain(content);
+            drain(in);
+
+            long end = System.nanoTime();
+            long download = in != null ? in.readNanos : 0;
+            metrics.recordPhase(operation, ApiMetrics.Phase.DOWNLOAD, download);
+            metrics.recordPhase(operation, ApiMetrics.Phase.PARSE, end - firstByte - download);
+            metrics.recordPhase(operation, ApiMetrics.Phase.TOTAL, end - start);
+            return result;
+
+        } catch (RetryException | CancelledException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            ApiMetrics.ErrorCause cause = ApiMetrics.ErrorCause.of(e);
+            // Los errores HTTP ya se contaron por código
+            if (!(e instanceof ApiException)) {
+                metrics.recordError(operation, cause);
+            }
+            if (cause == ApiMetrics.ErrorCause.TIMEOUT) {
+                (connected ? readTimeouts : connectTimeouts).onTimeout();
+            }
+            if (cause == ApiMetrics.ErrorCause.TIMEOUT || cause == ApiMetrics.ErrorCause.CONNECT
+                    || cause == ApiMetrics.ErrorCause.IO) {
+                breaker.onFailure();
+                if (canRetry && !handling) {
+                    throw new RetryException((IOException) e);
+                }
+            }
+            throw e;
+        } finally {
+            metrics.recordRequest(operation);
+            metrics.recordBytes(operation, sent, in != null ? in.bytes : 0);
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Abre una conexión con los encabezados y timeouts comunes
+     */
+    HttpURLConnection openConnection(String method, String path) throws IOException {
+        URL url = new URL(baseUrl + path);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod(method);
+        conn.setRequestProperty("Accept", "application/json");
+        conn.setRequestProperty("Content-Type", "application/json");
+        // Al pedirlo explícitamente la descompresión queda a cargo de execute()
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        conn.setConnectTimeout(connectTimeout);
+        conn.setReadTimeout(readTimeout);
+        return conn;
+    }
+
+    // ========== GETTERS ==========
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Timeout de lectura que se usará en la próxima llamada de esta operación
+     */
+    public int getCurrentReadTimeout(ApiMetrics.Operation operation) {
+        return readTimeouts[operation.ordinal()].getMillis();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Ajustes de resiliencia (las pruebas usan esperas cortas)
+     */
+    void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Comprime con gzip los cuerpos de POST/PUT de al menos MIN_COMPRESSED_BODY
+     * bytes. Solo para servidores que aceptan Content-Encoding: gzip.
+     */
+    public void setRequestCompression(boolean enabled) {
+        this.compressRequests = enabled;
+    }
+
+    void setRetryPolicy(int maxAttempts, long retryDelay, long maxRetryDelay) {
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    /**
+     * Métricas de todas las llamadas hechas con este cliente
+     */
+    public ApiMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Hilos de fondo donde corren las llamadas a la API, por prioridad
+     */
+    public TaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Detiene los hilos de fondo (solo para pruebas o instancias propias)
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static String trimSlash(String baseUrl) {
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * Los errores de red, 5xx, 408 y 429 se pueden reintentar; el resto son definitivos
+     */
+    static boolean isRetryable(Exception error) {
+        if (error instanceof ApiException) {
+            return isRetryableStatus(((ApiException) error).getStatusCode());
+        }
+        return error instanceof IOException && !(error instanceof JsonStreamReader.SyntaxException)
+                && !(error instanceof CancelledException);
+    }
+
+    static boolean isRetryableStatus(int code) {
+        return code >= HttpURLConnection.HTTP_INTERNAL_ERROR
+                || code == HttpURLConnection.HTTP_CLIENT_TIMEOUT || code == 429;
+    }
+
+    /**
+     * Espera antes del intento siguiente: "full jitter" entre 0 y
+     * retryDelay * 2^(attempt-1), con tope, para que varios clientes no
+     * reintenten todos a la vez
+     */
+    long retryDelay(int attempt) {
+        long ceiling = Math.min(maxRetryDelay, retryDelay << Math.min(attempt - 1, 20));
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+
+    static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        try {
+            gzip.write(bytes);
+        } finally {
+            gzip.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Reintento interrumpido");
+        }
+    }
+
+    static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+
+    /**
+     * Consume lo que quede del stream para que la conexión sea reutilizable
+     */
+    static void drain(InputStream in) throws IOException {
+        if (in != null) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) != -1) {
+                // descartar
+            }
+        }
+    }
+
+    static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try { in.close(); } catch (IOException e) { e.printStackTrace(); }
+        }
+    }
+
+    /**
+     * Respuesta HTTP ya leída por completo
+     */
+    public static class Response {
+        private final int code;
+        private final String body;
+
+        public Response(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+    }
+
+    /**
+     * Cuerpo gzip que se descomprime a medida que se lee
+     * El GZIPInputStream se crea en la primera lectura: un cuerpo vacío
+     * (304, 204) con Content-Encoding: gzip se lee como vacío y no falla.
+     */
+    private static class GzipBody extends InputStream {
+        private final InputStream raw;
+        private InputStream gzip;
+        private boolean empty;
+
+        GzipBody(InputStream raw) {
+            this.raw = raw;
+        }
+
+        private boolean open() throws IOException {
+            if (gzip == null && !empty) {
+                PushbackInputStream in = new PushbackInputStream(raw, 1);
+                int first = in.read();
+                if (first < 0) {
+                    empty = true;
+                } else {
+                    in.unread(first);
+                    gzip = new GZIPInputStream(in, 8192);
+                }
+            }
+            return !empty;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return open() ? gzip.read() : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return open() ? gzip.read(buffer, offset, length) : -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            raw.close();
+        }
+    }
+
+    /**
+     * El handler dejó de leer porque nadie espera el resultado
+     *
+     * No es una falla de la API: no cuenta como error en las métricas ni
+     * para el circuit breaker, y no se reintenta.
+     */
+    public static class CancelledException extends IOException {
+        public CancelledException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Falla antes de la respuesta que se puede volver a intentar
+     */
+    private static class RetryException extends IOException {
+        RetryException(IOException cause) {
+            super(cause);
+        }
+    }
+}
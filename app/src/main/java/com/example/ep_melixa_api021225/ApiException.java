@@ -0,0 +1,20 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.IOException;
+
+/**
+ * Error devuelto por la API (código HTTP fuera del rango 2xx)
+ */
+public class ApiException extends IOException {
+
+    private final int statusCode;
+
+    public ApiException(int statusCode, String message) {
+        super(message + " (HTTP " + statusCode + ")");
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
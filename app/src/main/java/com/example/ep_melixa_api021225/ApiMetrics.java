@@ -0,0 +1,358 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de las llamadas a la API de productos
+ *
+ * Por operación (GET, POST, PUT, DELETE) guarda histogramas de latencia de
+ * cada fase, bytes enviados y recibidos, resultados de la caché y errores
+ * por causa. Registrar un valor no toma locks: los contadores son LongAdder
+ * y los histogramas arreglos atómicos con cubetas fijas, así varios hilos
+ * del ApiClient escriben a la vez sin esperarse.
+ *
+ * Se leen con dump() (pantalla de depuración o "adb shell dumpsys activity").
+ */
+public class ApiMetrics {
+
+    /**
+     * Tipo de llamada, según el método HTTP
+     */
+    public enum Operation {
+        GET, POST, PUT, DELETE, OTHER;
+
+        static Operation of(String method) {
+            switch (method) {
+                case "GET":
+                    return GET;
+                case "POST":
+                    return POST;
+                case "PUT":
+                    return PUT;
+                case "DELETE":
+                    return DELETE;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+
+    /**
+     * Fases de una llamada
+     * CONNECT: abrir (o reutilizar) la conexión
+     * FIRST_BYTE: enviar la petición y esperar el código de respuesta
+     * DOWNLOAD: tiempo bloqueado leyendo el cuerpo de la red
+     * PARSE: resto del tiempo del handler (decodificar, copiar a caché)
+     */
+    public enum Phase {
+        CONNECT, FIRST_BYTE, DOWNLOAD, PARSE, TOTAL
+    }
+
+    /**
+     * Resultado de la caché del catálogo
+     * HIT: la UI ya tenía esa versión, no se leyó nada
+     * NOT_MODIFIED: 304, el catálogo se leyó de disco
+     * MISS: 200, el catálogo completo vino por la red
+     * STALE: la API no respondió y se usó la copia en disco
+     */
+    public enum CacheResult {
+        HIT, NOT_MODIFIED, MISS, STALE
+    }
+
+    /**
+     * CIRCUIT_OPEN: no se intentó, la API estaba marcada como caída
+     */
+    public enum ErrorCause {
+        TIMEOUT, CONNECT, HTTP_4XX, HTTP_5XX, PARSE, IO, CIRCUIT_OPEN, OTHER;
+
+        static ErrorCause of(Throwable error) {
+            if (error instanceof ApiException) {
+                return ((ApiException) error).getStatusCode() >= 500 ? HTTP_5XX : HTTP_4XX;
+            }
+            if (error instanceof CircuitBreaker.OpenException) {
+                return CIRCUIT_OPEN;
+            }
+            if (error instanceof SocketTimeoutException) {
+                return TIMEOUT;
+            }
+            if (error instanceof ConnectException || error instanceof UnknownHostException) {
+                return CONNECT;
+            }
+            if (error instanceof JsonStreamReader.SyntaxException || error instanceof JSONException) {
+                return PARSE;
+            }
+            if (error instanceof IOException) {
+                return IO;
+            }
+            return OTHER;
+        }
+    }
+
+    private final OperationMetrics[] operations;
+    private final LongAdder[] cacheResults;
+
+    public ApiMetrics() {
+        operations = new OperationMetrics[Operation.values().length];
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new OperationMetrics();
+        }
+        cacheResults = newAdders(CacheResult.values().length);
+    }
+
+    // ========== REGISTRO ==========
+
+    public void recordPhase(Operation operation, Phase phase, long nanos) {
+        operations[operation.ordinal()].phases[phase.ordinal()].record(nanos);
+    }
+
+    public void recordBytes(Operation operation, long sent, long received) {
+        OperationMetrics metrics = operations[operation.ordinal()];
+        metrics.bytesSent.add(sent);
+        metrics.bytesReceived.add(received);
+    }
+
+    public void recordStatus(Operation operation, int code) {
+        if (code >= 500) {
+            recordError(operation, ErrorCause.HTTP_5XX);
+        } else if (code >= 400) {
+            recordError(operation, ErrorCause.HTTP_4XX);
+        }
+    }
+
+    public void recordError(Operation operation, ErrorCause cause) {
+        operations[operation.ordinal()].errors[cause.ordinal()].increment();
+    }
+
+    public void recordCache(CacheResult result) {
+        cacheResults[result.ordinal()].increment();
+    }
+
+    void recordRetry(Operation operation) {
+        operations[operation.ordinal()].retries.increment();
+    }
+
+    /**
+     * Registra un pedido completo (CONNECT..TOTAL ya registrados aparte)
+     */
+    void recordRequest(Operation operation) {
+        operations[operation.ordinal()].requests.increment();
+    }
+
+    // ========== LECTURA ==========
+
+    public long getRequestCount(Operation operation) {
+        return operations[operation.ordinal()].requests.sum();
+    }
+
+    public long getRetryCount(Operation operation) {
+        return operations[operation.ordinal()].retries.sum();
+    }
+
+    public long getErrorCount(Operation operation, ErrorCause cause) {
+        return operations[operation.ordinal()].errors[cause.ordinal()].sum();
+    }
+
+    public long getCacheCount(CacheResult result) {
+        return cacheResults[result.ordinal()].sum();
+    }
+
+    public long getBytesReceived(Operation operation) {
+        return operations[operation.ordinal()].bytesReceived.sum();
+    }
+
+    public long getBytesSent(Operation operation) {
+        return operations[operation.ordinal()].bytesSent.sum();
+    }
+
+    public Histogram getHistogram(Operation operation, Phase phase) {
+        return operations[operation.ordinal()].phases[phase.ordinal()];
+    }
+
+    /**
+     * Resumen legible de todas las operaciones con actividad
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "cache: hit=%d 304=%d miss=%d stale=%d%n",
+                getCacheCount(CacheResult.HIT), getCacheCount(CacheResult.NOT_MODIFIED),
+                getCacheCount(CacheResult.MISS), getCacheCount(CacheResult.STALE)));
+        for (Operation operation : Operation.values()) {
+            OperationMetrics metrics = operations[operation.ordinal()];
+            long requests = metrics.requests.sum();
+            long errors = 0;
+            for (LongAdder error : metrics.errors) {
+                errors += error.sum();
+            }
+            if (requests == 0 && errors == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%s: %d llamadas, %d reintentos, enviados %d B, recibidos %d B%n",
+                    operation, requests, metrics.retries.sum(), metrics.bytesSent.sum(), metrics.bytesReceived.sum()));
+            for (Phase phase : Phase.values()) {
+                Histogram histogram = metrics.phases[phase.ordinal()];
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                out.append(String.format(Locale.ROOT, "  %-10s n=%d media=%.1fms p50<=%.1fms p90<=%.1fms p99<=%.1fms max=%.1fms%n",
+                        phase, histogram.getCount(), histogram.getMeanMillis(),
+                        histogram.getPercentileMillis(0.50), histogram.getPercentileMillis(0.90),
+                        histogram.getPercentileMillis(0.99), histogram.getMaxMillis()));
+            }
+            for (ErrorCause cause : ErrorCause.values()) {
+                long count = metrics.errors[cause.ordinal()].sum();
+                if (count > 0) {
+                    out.append("  error ").append(cause).append(": ").append(count).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static class OperationMetrics {
+        final LongAdder requests = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+        final LongAdder[] errors = newAdders(ErrorCause.values().length);
+        final Histogram[] phases = new Histogram[Phase.values().length];
+
+        OperationMetrics() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new Histogram();
+            }
+        }
+    }
+
+    // ========== HISTOGRAMA ==========
+
+    /**
+     * Histograma de duraciones con cubetas de potencias de 2 en microsegundos
+     * La cubeta i cuenta duraciones menores a 2^i µs; los percentiles se
+     * informan como ese límite superior (error máximo x2)
+     */
+    public static class Histogram {
+        static final int BUCKETS = 32;      // hasta ~35 minutos
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            long micros = nanos / 1000;
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            totalNanos.add(nanos);
+            long current = maxNanos.get();
+            while (nanos > current && !maxNanos.compareAndSet(current, nanos)) {
+                current = maxNanos.get();
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        /**
+         * Límite superior de la cubeta donde cae el percentil (0..1)
+         */
+        public double getPercentileMillis(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(percentile * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return (1L << i) / 1000.0;
+                }
+            }
+            return getMaxMillis();
+        }
+    }
+
+    // ========== STREAM MEDIDO ==========
+
+    /**
+     * Cuenta bytes y el tiempo bloqueado en read() del stream de la red
+     * Lo usa un solo hilo (el de la llamada), por eso no necesita atómicos
+     */
+    static class MeteredInputStream extends InputStream {
+        private final InputStream in;
+        long bytes;
+        long readNanos;
+
+        MeteredInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = in.read();
+            readNanos += System.nanoTime() - start;
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int read = in.read(buffer, offset, length);
+            readNanos += System.nanoTime() - start;
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
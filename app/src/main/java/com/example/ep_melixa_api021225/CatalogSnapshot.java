@@ -0,0 +1,300 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Copia binaria del último catálogo, leída con memoria mapeada
+ *
+ * Al abrir la pantalla de productos esta copia se carga en el catálogo sin
+ * esperar a la red ni parsear JSON. El archivo se mapea completo y cada
+ * producto se decodifica recién cuando se pide.
+ *
+ * Formato (enteros de 4 bytes big-endian; el resto en formato ProductCodec):
+ * [magic][versión del archivo][versión de ProductCodec][cantidad][CRC32 del resto]
+ * [validador del catálogo][diccionario][offsets de cada producto + fin][productos]
+ *
+ * open() valida todo el archivo (offsets y CRC) antes de devolverlo: un
+ * snapshot dañado se rechaza ahí, no al dibujar una fila en el hilo principal.
+ */
+public class CatalogSnapshot {
+
+    static final int MAGIC = 0x4D584353;       // "MXCS"
+    static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 20;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final String version;
+    private final List<String> dictionary;
+    private final int offsetsStart;
+    private final Product[] decoded;            // productos ya decodificados
+
+    private CatalogSnapshot(ByteBuffer buffer, int count, String version,
+                            List<String> dictionary, int offsetsStart) {
+        this.buffer = buffer;
+        this.count = count;
+        this.version = version;
+        this.dictionary = dictionary;
+        this.offsetsStart = offsetsStart;
+        this.decoded = new Product[count];
+    }
+
+    // ========== LECTURA ==========
+
+    /**
+     * Mapea el archivo; devuelve null si no existe o es de otra versión
+     *
+     * @throws IOException si el archivo está incompleto o dañado (conviene borrarlo)
+     */
+    public static CatalogSnapshot open(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // El mapeo sigue siendo válido después de cerrar el archivo
+            FileChannel channel = raf.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != ProductCodec.VERSION) {
+            return null;
+        }
+        int count = buffer.getInt(12);
+        if (buffer.getInt(16) != (int) checksum(buffer, HEADER_SIZE, buffer.limit())) {
+            throw new IOException("Snapshot dañado");
+        }
+
+        try {
+            ByteBuffer header = buffer.duplicate();
+            header.position(HEADER_SIZE);
+            ProductCodec.Reader reader = new ProductCodec.Reader(new BufferInputStream(header),
+                    new ArrayList<String>());
+            String version = reader.readString();
+            int dictionarySize = reader.readVarint();
+            if (dictionarySize < 0 || dictionarySize > header.remaining()) {
+                throw new IOException("Diccionario inválido");
+            }
+            List<String> dictionary = new ArrayList<>(dictionarySize);
+            StringPool pool = StringPool.getDefault();
+            for (int i = 0; i < dictionarySize; i++) {
+                dictionary.add(pool.intern(reader.readString()));
+            }
+            int offsetsStart = header.position();
+            if (count < 0 || header.remaining() / 4 < count + 1) {
+                throw new IOException("Snapshot incompleto");
+            }
+            // Cada fila empieza después de los offsets, en orden y dentro del archivo
+            int previous = offsetsStart + (count + 1) * 4;
+            for (int i = 0; i <= count; i++) {
+                int offset = buffer.getInt(offsetsStart + i * 4);
+                if (offset < previous || offset > buffer.limit()) {
+                    throw new IOException("Offset inválido en la posición " + i);
+                }
+                previous = offset;
+            }
+            return new CatalogSnapshot(buffer, count, version, dictionary, offsetsStart);
+        } catch (RuntimeException e) {
+            throw new IOException("Snapshot dañado", e);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Validador (ETag o Last-Modified) del catálogo guardado, o null
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Producto en la posición; se decodifica la primera vez que se pide
+     * Sincronizado: el diff del adapter lo lee desde otro hilo
+     */
+    public synchronized Product get(int index) {
+        Product product = decoded[index];
+        if (product == null) {
+            product = decode(index);
+            decoded[index] = product;
+        }
+        return product;
+    }
+
+    /**
+     * Vista de lista que decodifica solo los elementos que se leen
+     */
+    public List<Product> asList() {
+        return new AbstractList<Product>() {
+            @Override
+            public Product get(int index) {
+                return CatalogSnapshot.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Entrega todos los productos en orden (para reemplazar un parseo de JSON)
+     */
+    public int readAll(ProductStreamParser.Listener listener) throws IOException {
+        for (int i = 0; i < count; i++) {
+            listener.onProduct(get(i));
+        }
+        return count;
+    }
+
+    private Product decode(int index) {
+        int start = buffer.getInt(offsetsStart + index * 4);
+        int end = buffer.getInt(offsetsStart + (index + 1) * 4);
+        ByteBuffer row = buffer.duplicate();
+        row.position(start);
+        row.limit(end);
+        try {
+            return new ProductCodec.Reader(new BufferInputStream(row), dictionary).readProduct();
+        } catch (IOException e) {
+            // open() ya comprobó el CRC: los bytes son los que escribió write()
+            throw new IllegalStateException("Snapshot ilegible en la posición " + index, e);
+        }
+    }
+
+    // ========== ESCRITURA ==========
+
+    /**
+     * Escribe el catálogo en un archivo temporal y lo renombra
+     * Quien llama evita escrituras simultáneas sobre el mismo archivo
+     * (ver ProductRepository); el temporal es único igual.
+     */
+    public static void write(File file, List<Product> products, String version) throws IOException {
+        // Diccionario completo en la cabecera: cada producto se lee por separado
+        Set<String> values = new LinkedHashSet<>();
+        for (Product product : products) {
+            if (product.getCategory() != null) {
+                values.add(product.getCategory());
+            }
+            if (product.getAvailability() != null) {
+                values.add(product.getAvailability());
+            }
+        }
+        List<String> dictionary = new ArrayList<>(values);
+
+        ByteArrayOutputStream meta = new ByteArrayOutputStream();
+        ProductCodec.Writer metaWriter = new ProductCodec.Writer(meta, new ArrayList<String>());
+        metaWriter.writeString(version);
+        metaWriter.writeVarint(dictionary.size());
+        for (String value : dictionary) {
+            metaWriter.writeString(value);
+        }
+
+        ByteArrayOutputStream rows = new ByteArrayOutputStream(products.size() * 96);
+        ProductCodec.Writer rowWriter = new ProductCodec.Writer(rows, dictionary);
+        int[] offsets = new int[products.size() + 1];
+        int rowsStart = HEADER_SIZE + meta.size() + offsets.length * 4;
+        for (int i = 0; i < products.size(); i++) {
+            offsets[i] = rowsStart + rows.size();
+            rowWriter.writeProduct(products.get(i));
+        }
+        offsets[products.size()] = rowsStart + rows.size();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(rowsStart + rows.size());
+        meta.writeTo(body);
+        DataOutputStream offsetsOut = new DataOutputStream(body);
+        for (int offset : offsets) {
+            offsetsOut.writeInt(offset);
+        }
+        rows.writeTo(body);
+        CRC32 crc = new CRC32();
+        byte[] bytes = body.toByteArray();
+        crc.update(bytes, 0, bytes.length);
+
+        // Temporal propio en la misma carpeta (el renombrado no cruza sistemas de archivos)
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(ProductCodec.VERSION);
+            out.writeInt(products.size());
+            out.writeInt((int) crc.getValue());
+            out.write(bytes);
+        } catch (IOException e) {
+            out.close();
+            temp.delete();
+            throw e;
+        }
+        out.close();
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("No se pudo guardar " + file);
+        }
+    }
+
+    /**
+     * CRC32 de buffer[from, to) leyendo por bloques
+     * (CRC32.update(ByteBuffer) no está antes de Android 8)
+     */
+    private static long checksum(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        ByteBuffer source = buffer.duplicate();
+        source.position(from);
+        source.limit(to);
+        byte[] chunk = new byte[8192];
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * InputStream sobre un ByteBuffer (sin copiar)
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ep_melixa_api021225;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sincroniza el catálogo en segundo plano
+ *
+ * Corre cada SYNC_INTERVAL, solo con red sin medir (Wi-Fi) y cargando, y
+ * deja al día la caché HTTP y el snapshot del catálogo (ver
+ * ProductRepository.syncCatalog). Al abrir la lista los datos ya están en
+ * disco y la revalidación suele terminar en un 304.
+ */
+public class CatalogSyncService extends JobService {
+
+    private static final String TAG = "CatalogSync";
+    private static final int JOB_ID = 1001;
+    private static final long SYNC_INTERVAL = TimeUnit.HOURS.toMillis(6);
+
+    // Sincronización en curso (si el sistema la detiene, el resultado se ignora)
+    private volatile JobParameters running;
+    private volatile TaskScheduler.Task task;
+
+    /**
+     * Programa la sincronización periódica si todavía no está programada
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, CatalogSyncService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setPeriodic(SYNC_INTERVAL)
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        running = params;
+        final ProductRepository repository = ProductRepository.getInstance(this);
+        // Prioridad baja: lo que pida el usuario sale antes
+        task = ApiClient.getInstance().getScheduler().submit(TaskScheduler.Priority.BACKGROUND, null, new Runnable() {
+            @Override
+            public void run() {
+                boolean retry = false;
+                try {
+                    boolean changed = repository.syncCatalog();
+                    Log.d(TAG, changed ? "Catálogo actualizado" : "Catálogo sin cambios");
+                } catch (Exception e) {
+                    Log.w(TAG, "Sincronización fallida", e);
+                    retry = ApiClient.isRetryable(e);
+                }
+                if (running == params) {
+                    running = null;
+                    jobFinished(params, retry);
+                }
+            }
+        });
+        // El trabajo sigue en otro hilo
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Se perdió la condición (Wi-Fi o carga): volver a intentar más tarde
+        running = null;
+        TaskScheduler.Task pending = task;
+        if (pending != null) {
+            // Si todavía esperaba un hilo, no llega a correr
+            pending.cancel();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.IOException;
+
+/**
+ * Corta las llamadas a la API mientras no responde
+ *
+ * Tras failureThreshold fallas seguidas (red, timeout o 5xx) el circuito se
+ * abre: durante openMillis las llamadas fallan al instante con
+ * OpenException en lugar de esperar otro timeout, y el repositorio puede
+ * responder con lo que tiene en caché. Pasado ese tiempo deja pasar una
+ * sola llamada de prueba; si responde se cierra, si falla vuelve a abrirse.
+ */
+public class CircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = 30000;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Llamada rechazada sin intentar porque el circuito está abierto
+     */
+    public static class OpenException extends IOException {
+        public OpenException(long retryInMillis) {
+            super("API no disponible, reintento en " + retryInMillis + " ms");
+        }
+    }
+
+    /**
+     * Reloj en milisegundos (reemplazable en pruebas)
+     */
+    interface Clock {
+        long now();
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, new Clock() {
+            @Override
+            public long now() {
+                return System.nanoTime() / 1000000;
+            }
+        });
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Pide permiso para una llamada; lanza OpenException si no se debe intentar
+     */
+    public synchronized void acquire() throws OpenException {
+        if (state == State.OPEN) {
+            long elapsed = clock.now() - openedAt;
+            if (elapsed < openMillis) {
+                throw new OpenException(openMillis - elapsed);
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                // Ya hay una llamada de prueba; las demás esperan su resultado
+                throw new OpenException(0);
+            }
+            trialInFlight = true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.now();
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.now() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * true si la llamada no debería intentarse ahora (para servir datos guardados)
+     */
+    public boolean isOpen() {
+        return getState() == State.OPEN;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+/**
+ * Caché en disco de respuestas HTTP con tamaño máximo
+ *
+ * Cada entrada guarda el cuerpo de la respuesta y sus validadores
+ * (ETag, Last-Modified) para poder hacer peticiones condicionales.
+ * Cuando se supera el tamaño máximo se eliminan las entradas usadas
+ * hace más tiempo (LRU según la fecha de último acceso).
+ */
+public class HttpDiskCache {
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxSize;
+
+    public HttpDiskCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalStateException("No se pudo crear la caché en " + directory);
+        }
+    }
+
+    // ========== LECTURA ==========
+
+    /**
+     * Devuelve la entrada guardada para la URL, o null si no existe
+     */
+    public synchronized Entry get(String url) {
+        String key = keyFor(url);
+        File meta = new File(directory, key + META_SUFFIX);
+        File body = new File(directory, key + BODY_SUFFIX);
+        if (!meta.exists() || !body.exists()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(meta);
+            properties.load(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            ApiClient.closeQuietly(in);
+        }
+
+        // Marcar como usada recientemente
+        meta.setLastModified(System.currentTimeMillis());
+        return new Entry(properties.getProperty("etag"), properties.getProperty("lastModified"), body);
+    }
+
+    // ========== ESCRITURA ==========
+
+    /**
+     * Abre un editor para reemplazar la entrada de la URL
+     * Nada es visible hasta llamar a commit()
+     */
+    public Editor edit(String url) throws IOException {
+        return new Editor(keyFor(url));
+    }
+
+    public synchronized void remove(String url) {
+        String key = keyFor(url);
+        new File(directory, key + META_SUFFIX).delete();
+        new File(directory, key + BODY_SUFFIX).delete();
+    }
+
+    /**
+     * Tamaño total ocupado en disco (bytes)
+     */
+    public synchronized long size() {
+        long total = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Elimina las entradas menos usadas hasta quedar bajo el máximo
+     */
+    private synchronized void trimToSize() {
+        long size = size();
+        if (size <= maxSize) {
+            return;
+        }
+
+        File[] metas = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(META_SUFFIX);
+            }
+        });
+        if (metas == null) {
+            return;
+        }
+        Arrays.sort(metas, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+
+        for (File meta : metas) {
+            if (size <= maxSize) {
+                break;
+            }
+            String key = meta.getName().substring(0, meta.getName().length() - META_SUFFIX.length());
+            File body = new File(directory, key + BODY_SUFFIX);
+            size -= meta.length() + body.length();
+            meta.delete();
+            body.delete();
+        }
+    }
+
+    private static String keyFor(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Respuesta guardada: validadores y archivo con el cuerpo
+     */
+    public static class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final File body;
+
+        Entry(String etag, String lastModified, File body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Validador que identifica esta versión (ETag o, si no hay, Last-Modified)
+         */
+        public String getVersion() {
+            return etag != null ? etag : lastModified;
+        }
+
+        public InputStream openBody() throws IOException {
+            return new FileInputStream(body);
+        }
+
+        public long getBodyLength() {
+            return body.length();
+        }
+    }
+
+    /**
+     * Escribe una entrada nueva en un archivo temporal
+     */
+    public class Editor {
+        private final String key;
+        private final File temp;
+        private final OutputStream out;
+
+        Editor(String key) throws IOException {
+            this.key = key;
+            this.temp = new File(directory, key + TEMP_SUFFIX + Thread.currentThread().getId());
+            this.out = new FileOutputStream(temp);
+        }
+
+        /**
+         * Copia al editor todo lo que se lea del stream (tee)
+         */
+        public InputStream wrap(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        out.write(b);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read > 0) {
+                        out.write(buffer, offset, read);
+                    }
+                    return read;
+                }
+            };
+        }
+
+        /**
+         * Publica la entrada con sus validadores
+         */
+        public void commit(String etag, String lastModified) throws IOException {
+            out.close();
+
+            Properties properties = new Properties();
+            if (etag != null) {
+                properties.setProperty("etag", etag);
+            }
+            if (lastModified != null) {
+                properties.setProperty("lastModified", lastModified);
+            }
+
+            synchronized (HttpDiskCache.this) {
+                File body = new File(directory, key + BODY_SUFFIX);
+                File meta = new File(directory, key + META_SUFFIX);
+                if (body.exists() && !body.delete() || !temp.renameTo(body)) {
+                    abort();
+                    throw new IOException("No se pudo guardar la entrada en caché");
+                }
+                OutputStream metaOut = new FileOutputStream(meta);
+                try {
+                    properties.store(metaOut, null);
+                } finally {
+                    metaOut.close();
+                }
+                trimToSize();
+            }
+        }
+
+        /**
+         * Descarta lo escrito
+         */
+        public void abort() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.ep_melixa_api021225;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Carga de imágenes de productos
+ *
+ * - Caché en memoria (LRU) dimensionada según el heap disponible
+ * - Caché en disco (HttpDiskCache) con las imágenes originales
+ * - Decodificación reducida (inSampleSize) al tamaño de la vista
+ * - Peticiones duplicadas en vuelo se agrupan en una sola descarga
+ * - Al reciclar una fila se cancela su petición
+ *
+ * Cachés, agrupación y cancelación están en ImagePipeline; acá queda lo
+ * que depende de Android (Bitmap, LruCache, tamaño de la vista).
+ *
+ * Todos los métodos públicos se llaman desde el hilo principal.
+ */
+public class ImageLoader {
+
+    private static final long DISK_CACHE_SIZE = 50 * 1024 * 1024;   // 50 MB
+    private static final int DEFAULT_SIZE = 256;    // px, si la vista aún no tiene tamaño
+
+    private static ImageLoader instance;
+
+    private final ImagePipeline<Bitmap, ImageView> pipeline;
+
+    public ImageLoader(File cacheDir, Executor mainExecutor) {
+        // 1/8 del heap disponible, medido en KB
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        final LruCache<String, Bitmap> memoryCache = new LruCache<String, Bitmap>(maxKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+        this.pipeline = new ImagePipeline<>(cacheDir, DISK_CACHE_SIZE,
+                new ImagePipeline.MemoryCache<Bitmap>() {
+                    @Override
+                    public Bitmap get(String key) {
+                        return memoryCache.get(key);
+                    }
+
+                    @Override
+                    public void put(String key, Bitmap image) {
+                        memoryCache.put(key, image);
+                    }
+
+                    @Override
+                    public void clear() {
+                        memoryCache.evictAll();
+                    }
+                },
+                new ImagePipeline.Decoder<Bitmap>() {
+                    @Override
+                    public Bitmap decode(HttpDiskCache.Entry entry, int width, int height) throws IOException {
+                        return ImageLoader.decode(entry, width, height);
+                    }
+                },
+                new ImagePipeline.Binder<Bitmap, ImageView>() {
+                    @Override
+                    public void bind(ImageView view, Bitmap bitmap) {
+                        view.setImageBitmap(bitmap);
+                    }
+                },
+                mainExecutor);
+    }
+
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (instance == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), "images");
+            instance = new ImageLoader(cacheDir, new MainThreadExecutor());
+        }
+        return instance;
+    }
+
+    // ========== CARGA ==========
+
+    /**
+     * Muestra la imagen de la URL en la vista, reducida a su tamaño
+     */
+    public void load(String url, ImageView view, int placeholderRes) {
+        if (url == null || url.isEmpty()) {
+            pipeline.cancel(view);
+            view.setImageResource(placeholderRes);
+            return;
+        }
+        if (!pipeline.load(url, targetSize(view, true), targetSize(view, false), view)) {
+            // La imagen llega después, en este mismo hilo
+            view.setImageResource(placeholderRes);
+        }
+    }
+
+    /**
+     * Cancela la carga pendiente de la vista (por ejemplo al reciclar la fila)
+     */
+    public void cancel(ImageView view) {
+        pipeline.cancel(view);
+    }
+
+    /**
+     * Libera memoria cuando el sistema la pide
+     */
+    public void trimMemory() {
+        pipeline.trimMemory();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static int targetSize(ImageView view, boolean horizontal) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        int size = horizontal ? view.getWidth() : view.getHeight();
+        if (size <= 0 && params != null) {
+            size = horizontal ? params.width : params.height;
+        }
+        return size > 0 ? size : DEFAULT_SIZE;
+    }
+
+    /**
+     * Mayor potencia de 2 que mantiene la imagen igual o más grande que el destino
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        while (width / (inSampleSize * 2) >= reqWidth && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private static Bitmap decode(HttpDiskCache.Entry entry, int reqWidth, int reqHeight) throws IOException {
+        // Primera pasada: solo dimensiones
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        InputStream in = entry.openBody();
+        try {
+            BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            ApiClient.closeQuietly(in);
+        }
+
+        // Segunda pasada: decodificar ya reducida
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        in = entry.openBody();
+        try {
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            ApiClient.closeQuietly(in);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Descarga, caché y entrega de imágenes, sin clases de Android
+ *
+ * ImageLoader lo usa con Bitmap e ImageView; acá solo se ven un tipo de
+ * imagen (T) y un tipo de destino (V), así la lógica de cachés, pedidos
+ * agrupados y cancelación se prueba en la JVM con un decodificador falso.
+ *
+ * - Caché en memoria (MemoryCache) por URL y tamaño
+ * - Caché en disco (HttpDiskCache) con las imágenes originales
+ * - Pedidos iguales en vuelo se agrupan en una sola descarga
+ * - Un destino cancelado deja de esperar; sin destinos, la descarga se corta
+ *
+ * Todos los métodos se llaman desde el hilo principal (mainExecutor).
+ */
+class ImagePipeline<T, V> {
+
+    private static final int THREADS = 3;
+
+    /**
+     * Convierte la imagen guardada en disco al tamaño pedido (en un hilo de fondo)
+     */
+    interface Decoder<T> {
+        T decode(HttpDiskCache.Entry entry, int width, int height) throws IOException;
+    }
+
+    interface MemoryCache<T> {
+        T get(String key);
+
+        void put(String key, T image);
+
+        void clear();
+    }
+
+    /**
+     * Muestra la imagen en el destino (en el hilo principal)
+     */
+    interface Binder<T, V> {
+        void bind(V target, T image);
+    }
+
+    private final MemoryCache<T> memoryCache;
+    private final HttpDiskCache diskCache;
+    private final Decoder<T> decoder;
+    private final Binder<T, V> binder;
+    private final ExecutorService executor;
+    private final Executor mainExecutor;
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    // Pedidos en vuelo por clave y pedido asignado a cada destino
+    private final Map<String, Request> inFlight = new HashMap<>();
+    private final Map<V, Request> targets = new WeakHashMap<>();
+
+    ImagePipeline(File cacheDir, long diskCacheSize, MemoryCache<T> memoryCache, Decoder<T> decoder,
+                  Binder<T, V> binder, Executor mainExecutor) {
+        this.memoryCache = memoryCache;
+        this.diskCache = new HttpDiskCache(cacheDir, diskCacheSize);
+        this.decoder = decoder;
+        this.binder = binder;
+        this.executor = Executors.newFixedThreadPool(THREADS);
+        this.mainExecutor = mainExecutor;
+        this.connectTimeout = ApiClient.DEFAULT_CONNECT_TIMEOUT;
+        this.readTimeout = ApiClient.DEFAULT_READ_TIMEOUT;
+    }
+
+    /**
+     * Pide la imagen para el destino; cancela lo que el destino esperaba antes
+     *
+     * @return true si estaba en memoria y ya se mostró; si no, llegará por Binder
+     */
+    boolean load(String url, int width, int height, V target) {
+        cancel(target);
+
+        String key = url + '@' + width + 'x' + height;
+        T cached = memoryCache.get(key);
+        if (cached != null) {
+            binder.bind(target, cached);
+            return true;
+        }
+
+        // Reutilizar la descarga si otro destino ya pidió la misma imagen
+        Request request = inFlight.get(key);
+        if (request == null) {
+            request = new Request(key, url, width, height);
+            inFlight.put(key, request);
+            request.future = executor.submit(request);
+        }
+        request.targets.add(target);
+        targets.put(target, request);
+        return false;
+    }
+
+    /**
+     * El destino ya no espera imagen (por ejemplo, se recicló la fila)
+     */
+    void cancel(V target) {
+        Request request = targets.remove(target);
+        if (request == null) {
+            return;
+        }
+        request.targets.remove(target);
+        if (request.targets.isEmpty()) {
+            request.future.cancel(true);
+            inFlight.remove(request.key);
+        }
+    }
+
+    void trimMemory() {
+        memoryCache.clear();
+    }
+
+    /**
+     * Descargas distintas en curso
+     */
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * true si el destino espera una imagen
+     */
+    boolean isLoading(V target) {
+        return targets.containsKey(target);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void deliver(Request request, T image) {
+        if (inFlight.get(request.key) == request) {
+            inFlight.remove(request.key);
+        }
+        if (image != null) {
+            memoryCache.put(request.key, image);
+        }
+        // Aunque falle, los destinos dejan de esperar (se quedan con el placeholder)
+        for (V target : request.targets) {
+            targets.remove(target);
+            if (image != null) {
+                binder.bind(target, image);
+            }
+        }
+        request.targets.clear();
+    }
+
+    /**
+     * Descarga la imagen al disco si hace falta
+     */
+    private HttpDiskCache.Entry fetchToDisk(String url) throws IOException {
+        HttpDiskCache.Entry entry = diskCache.get(url);
+        if (entry != null) {
+            return entry;
+        }
+
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(connectTimeout);
+        conn.setReadTimeout(readTimeout);
+        InputStream in = null;
+        try {
+            int code = conn.getResponseCode();
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new ApiException(code, "Error al descargar imagen");
+            }
+            in = conn.getInputStream();
+            HttpDiskCache.Editor editor = diskCache.edit(url);
+            try {
+                ApiClient.drain(editor.wrap(in));
+                editor.commit(conn.getHeaderField("ETag"), conn.getHeaderField("Last-Modified"));
+            } catch (IOException e) {
+                editor.abort();
+                throw e;
+            }
+        } finally {
+            ApiClient.closeQuietly(in);
+        }
+        return diskCache.get(url);
+    }
+
+    /**
+     * Una descarga + decodificación compartida por todos los destinos que la esperan
+     */
+    private class Request implements Runnable {
+        final String key;
+        final String url;
+        final int width;
+        final int height;
+        final List<V> targets = new ArrayList<>(1);     // solo hilo principal
+        Future<?> future;
+
+        Request(String key, String url, int width, int height) {
+            this.key = key;
+            this.url = url;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void run() {
+            T image = null;
+            try {
+                HttpDiskCache.Entry entry = fetchToDisk(url);
+                if (entry != null && !Thread.currentThread().isInterrupted()) {
+                    image = decoder.decode(entry, width, height);
+                }
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                // Siempre se entrega, también ante un Error: si no, la clave
+                // quedaría en vuelo y los próximos pedidos esperarían para siempre
+                final T result = image;
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(Request.this, result);
+                    }
+                });
+            }
+        }
+    }
+}
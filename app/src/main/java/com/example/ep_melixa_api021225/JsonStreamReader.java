@@ -0,0 +1,446 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lector JSON por streaming (pull parser)
+ *
+ * Lee los tokens directamente desde un Reader con un buffer fijo, sin
+ * construir el árbol completo en memoria. La API sigue el estilo de
+ * android.util.JsonReader pero no depende del framework, así se puede
+ * usar y probar en la JVM.
+ */
+public class JsonStreamReader implements Closeable {
+
+    public enum Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT,
+        NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // Ámbitos de la pila de anidamiento
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    private Token peeked;
+    private final StringBuilder builder = new StringBuilder();
+
+    public JsonStreamReader(Reader in) {
+        this.in = in;
+        push(EMPTY_DOCUMENT);
+    }
+
+    // ========== NAVEGACIÓN ==========
+
+    /**
+     * Devuelve el tipo del siguiente token sin consumirlo
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int scope = stack[stackSize - 1];
+        int c;
+
+        if (scope == EMPTY_ARRAY) {
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+            c = nextNonWhitespace(true);
+            if (c == ']') {
+                return peeked = Token.END_ARRAY;
+            }
+            pos--;
+        } else if (scope == NONEMPTY_ARRAY) {
+            c = nextNonWhitespace(true);
+            if (c == ']') {
+                return peeked = Token.END_ARRAY;
+            }
+            if (c != ',') {
+                throw syntaxError("Se esperaba ',' o ']'");
+            }
+        } else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            stack[stackSize - 1] = DANGLING_NAME;
+            c = nextNonWhitespace(true);
+            if (c == '}') {
+                return peeked = Token.END_OBJECT;
+            }
+            if (scope == NONEMPTY_OBJECT) {
+                if (c != ',') {
+                    throw syntaxError("Se esperaba ',' o '}'");
+                }
+                c = nextNonWhitespace(true);
+            }
+            if (c != '"') {
+                throw syntaxError("Se esperaba un nombre");
+            }
+            return peeked = Token.NAME;
+        } else if (scope == DANGLING_NAME) {
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace(true) != ':') {
+                throw syntaxError("Se esperaba ':'");
+            }
+        } else if (scope == EMPTY_DOCUMENT) {
+            stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+        } else if (scope == NONEMPTY_DOCUMENT) {
+            if (nextNonWhitespace(false) == -1) {
+                return peeked = Token.END_DOCUMENT;
+            }
+            throw syntaxError("Contenido después del documento");
+        }
+
+        c = nextNonWhitespace(true);
+        switch (c) {
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return peeked = Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("Carácter inesperado '" + (char) c + "'");
+        }
+    }
+
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    // ========== VALORES ==========
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * Lee un string; números y booleanos se devuelven como texto
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        peeked = null;
+        if (token == Token.STRING) {
+            return readString();
+        }
+        if (token == Token.NUMBER || token == Token.BOOLEAN) {
+            return readLiteral();
+        }
+        throw syntaxError("Se esperaba un string pero llegó " + token);
+    }
+
+    /**
+     * Lee un string guardando como mucho maxLength caracteres
+     * El resto se recorre sin copiarlo: textos largos que no se van a
+     * mostrar completos no ocupan memoria (0 solo lo salta).
+     */
+    public String nextString(int maxLength) throws IOException {
+        Token token = peek();
+        if (token != Token.STRING) {
+            return nextString();
+        }
+        peeked = null;
+        return readString(maxLength);
+    }
+
+    /**
+     * Lee un string y devuelve la instancia del pool con ese texto
+     * Para valores que se repiten en cada fila: si ya está en el pool no se
+     * crea ningún String.
+     */
+    public String nextString(StringPool pool) throws IOException {
+        Token token = peek();
+        if (token != Token.STRING) {
+            return pool.intern(nextString());
+        }
+        peeked = null;
+        readChars(Integer.MAX_VALUE);
+        return pool.intern(builder);
+    }
+
+    public double nextDouble() throws IOException {
+        Token token = peek();
+        if (token != Token.NUMBER && token != Token.STRING) {
+            throw syntaxError("Se esperaba un número pero llegó " + token);
+        }
+        String text = nextString();
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Número inválido: " + text);
+        }
+    }
+
+    public int nextInt() throws IOException {
+        return (int) nextDouble();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        String literal = readLiteral();
+        if ("true".equals(literal)) {
+            return true;
+        }
+        if ("false".equals(literal)) {
+            return false;
+        }
+        throw syntaxError("Booleano inválido: " + literal);
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        if (!"null".equals(readLiteral())) {
+            throw syntaxError("Se esperaba null");
+        }
+    }
+
+    /**
+     * Descarta el siguiente valor completo (incluye objetos y arreglos anidados)
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case BOOLEAN:
+                case NUMBER:
+                    nextString();
+                    break;
+                case STRING:
+                    nextString(0);
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw syntaxError("Fin de documento inesperado");
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Se esperaba " + expected + " pero llegó " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private int nextNonWhitespace(boolean throwOnEof) throws IOException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        if (throwOnEof) {
+            throw syntaxError("Fin de entrada inesperado");
+        }
+        return -1;
+    }
+
+    /**
+     * Lee el resto de un string cuya comilla inicial ya fue consumida
+     */
+    private String readString() throws IOException {
+        return readString(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Igual que readString() pero copia solo los primeros maxLength caracteres
+     */
+    private String readString(int maxLength) throws IOException {
+        readChars(maxLength);
+        return builder.toString();
+    }
+
+    /**
+     * Deja en builder el string (hasta maxLength caracteres) y consume el resto
+     */
+    private void readChars(int maxLength) throws IOException {
+        builder.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == '"') {
+                    append(start, pos - 1, maxLength);
+                    return;
+                }
+                if (c == '\\') {
+                    append(start, pos - 1, maxLength);
+                    char escaped = readEscape();
+                    if (builder.length() < maxLength) {
+                        builder.append(escaped);
+                    }
+                    start = pos;
+                }
+            }
+            append(start, pos, maxLength);
+            if (!fill()) {
+                throw syntaxError("String sin terminar");
+            }
+        }
+    }
+
+    private void append(int start, int end, int maxLength) {
+        int count = Math.min(end - start, maxLength - builder.length());
+        if (count > 0) {
+            builder.append(buffer, start, count);
+        }
+    }
+
+    private char readEscape() throws IOException {
+        char c = nextChar();
+        switch (c) {
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextChar(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Escape unicode inválido");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            default:
+                // \" \\ \/ y cualquier otro se devuelven tal cual
+                return c;
+        }
+    }
+
+    private char nextChar() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Fin de entrada inesperado");
+        }
+        return buffer[pos++];
+    }
+
+    /**
+     * Lee un literal sin comillas (número, true, false, null)
+     */
+    private String readLiteral() throws IOException {
+        builder.setLength(0);
+        while (pos < limit || fill()) {
+            char c = buffer[pos];
+            if (c == ',' || c == '}' || c == ']' || c == ':' ||
+                    c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                break;
+            }
+            builder.append(c);
+            pos++;
+        }
+        return builder.toString();
+    }
+
+    private SyntaxException syntaxError(String message) {
+        return new SyntaxException("JSON inválido: " + message);
+    }
+
+    /**
+     * El contenido recibido no es JSON válido
+     */
+    public static class SyntaxException extends IOException {
+        public SyntaxException(String message) {
+            super(message);
+        }
+    }
+}
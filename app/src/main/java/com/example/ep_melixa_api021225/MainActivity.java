@@ -3,15 +3,21 @@ package com.example.ep_melixa_api021225;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
+import java.util.List;
 
 public class MainActivity extends AppCompatActivity {
 
-    private static final int SPLASH_DURATION = 3000; // 3 segundos
+    // Tope del splash: se sale antes si el catálogo ya respondió
+    private static final int MAX_SPLASH_DURATION = 1200; // ms
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean navigated;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -31,15 +37,65 @@ public class MainActivity extends AppCompatActivity {
         appName.startAnimation(slideUp);
         loadingText.startAnimation(fadeIn);
 
-        // Navegar al menú después del splash
-        new Handler().postDelayed(new Runnable() {
+        // Precargar el catálogo mientras se muestra el splash: abre la conexión
+        // del pool, lee la copia en disco y empieza la descarga. La pantalla
+        // de productos retoma esta misma carga (o su resultado) sin repetirla.
+        // Sin TaskScope a propósito: la carga debe seguir después del splash;
+        // navigate() ya ignora lo que llegue con la actividad cerrada.
+        ProductRepository.getInstance(this).loadProducts(false, new ProductRepository.BatchCallback() {
+            @Override
+            public void onBatch(List<Product> batch, boolean first) {
+                // Ya hay filas para mostrar
+                navigate();
+            }
+
+            @Override
+            public void onNotModified() {
+                navigate();
+            }
+
+            @Override
+            public void onSuccess(Integer total) {
+                navigate();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // Sin red: la pantalla siguiente muestra el error al reintentar
+                navigate();
+            }
+        });
+
+        // Mantener el catálogo en disco al día aunque no se abra la app
+        CatalogSyncService.schedule(this);
+
+        handler.postDelayed(new Runnable() {
             @Override
             public void run() {
-                Intent intent = new Intent(MainActivity.this, MenuActivity.class);
-                startActivity(intent);
-                finish();
-                overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
+                navigate();
             }
-        }, SPLASH_DURATION);
+        }, MAX_SPLASH_DURATION);
+    }
+
+    @Override
+    protected void onDestroy() {
+        handler.removeCallbacksAndMessages(null);
+        super.onDestroy();
+    }
+
+    /**
+     * Navegar al menú (una sola vez: lo que llegue primero, datos o tope)
+     */
+    private void navigate() {
+        if (navigated || isFinishing()) {
+            return;
+        }
+        navigated = true;
+        handler.removeCallbacksAndMessages(null);
+
+        Intent intent = new Intent(MainActivity.this, MenuActivity.class);
+        startActivity(intent);
+        finish();
+        overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.example.ep_melixa_api021225;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor que entrega los resultados en el hilo principal (UI)
+ */
+public class MainThreadExecutor implements Executor {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(Runnable command) {
+        handler.post(command);
+    }
+}
@@ -2,7 +2,7 @@ package com.example.ep_melixa_api021225;
 
 import org.json.JSONException;
 import org.json.JSONObject;
-import java.io.Serializable;
+import java.io.IOException;
 
 /**
  * Clase modelo para Producto adaptada a FakeStores API
@@ -16,10 +16,22 @@ import java.io.Serializable;
  *   "image": "https://image.url",
  *   "rating": { "rate": 4.5, "count": 120 }
  * }
+ *
+ * Para guardar o pasar productos entre componentes se usa ProductCodec
+ * (binario) o ProductParcel (Intent / estado guardado).
+ *
+ * Las filas de la lista usan una versión resumida (isSummary()): la
+ * descripción llega recortada y el producto completo se pide al abrirlo
+ * para editar (ProductRepository.loadProductDetail).
  */
-public class Product implements Serializable {
+public class Product {
 
-    private static final long serialVersionUID = 1L;
+    // Límite de descripción que indica leerla completa
+    public static final int NO_LIMIT = -1;
+
+    // Valores de availability
+    public static final String IN_STOCK = "InStock";
+    public static final String OUT_OF_STOCK = "OutOfStock";
 
     // Atributos según API FakeStores
     private String id;              // ID es String en esta API
@@ -31,6 +43,7 @@ public class Product implements Serializable {
     private double rating;          // Calificación
     private int ratingCount;        // Cantidad de valoraciones
     private String availability;    // "InStock" o "OutOfStock"
+    private boolean summary;        // true si la descripción está recortada
 
     // ========== CONSTRUCTORES ==========
 
@@ -38,7 +51,7 @@ public class Product implements Serializable {
      * Constructor vacío
      */
     public Product() {
-        this.availability = "InStock";
+        this.availability = IN_STOCK;
     }
 
     /**
@@ -64,6 +77,23 @@ public class Product implements Serializable {
         this.image = image;
     }
 
+    /**
+     * Constructor copia
+     * Permite editar un producto sin tocar el que muestra la lista
+     */
+    public Product(Product other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.price = other.price;
+        this.description = other.description;
+        this.category = other.category;
+        this.image = other.image;
+        this.rating = other.rating;
+        this.ratingCount = other.ratingCount;
+        this.availability = other.availability;
+        this.summary = other.summary;
+    }
+
     /**
      * Constructor desde JSONObject
      * Facilita el parseo desde la respuesta de la API
@@ -73,9 +103,11 @@ public class Product implements Serializable {
         this.title = json.optString("title", "");
         this.price = json.optDouble("price", 0.0);
         this.description = json.optString("description", "");
-        this.category = json.optString("category", "");
+        // Valores repetidos en todo el catálogo: una sola instancia (StringPool)
+        StringPool pool = StringPool.getDefault();
+        this.category = pool.intern(json.optString("category", ""));
         this.image = json.optString("image", "");
-        this.availability = json.optString("availability", "InStock");
+        this.availability = pool.intern(json.optString("availability", IN_STOCK));
 
         // Parsear rating si existe
         if (json.has("rating") && !json.isNull("rating")) {
@@ -87,6 +119,114 @@ public class Product implements Serializable {
         }
     }
 
+    /**
+     * Constructor desde un lector JSON por streaming
+     * Lee un objeto producto completo sin construir un JSONObject intermedio
+     */
+    public Product(JsonStreamReader reader) throws IOException {
+        this(reader, NO_LIMIT);
+    }
+
+    /**
+     * Constructor desde un lector JSON, con la descripción recortada
+     * Si la descripción supera descriptionLimit caracteres se guardan solo
+     * los primeros, el resto se salta sin copiarlo y el producto queda
+     * marcado como resumen.
+     *
+     * @param descriptionLimit caracteres de descripción a conservar, o NO_LIMIT
+     */
+    public Product(JsonStreamReader reader, int descriptionLimit) throws IOException {
+        this(reader, descriptionLimit, StringPool.getDefault());
+    }
+
+    /**
+     * @param pool pool para categoría y disponibilidad, o null para no
+     *             compartir instancias (referencia de los benchmarks)
+     */
+    Product(JsonStreamReader reader, int descriptionLimit, StringPool pool) throws IOException {
+        this.id = "";
+        this.title = "";
+        this.description = "";
+        this.category = "";
+        this.image = "";
+        this.availability = IN_STOCK;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonStreamReader.Token.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "id":
+                    this.id = reader.nextString();
+                    break;
+                case "title":
+                    this.title = reader.nextString();
+                    break;
+                case "price":
+                    this.price = reader.nextDouble();
+                    break;
+                case "description":
+                    readDescription(reader, descriptionLimit);
+                    break;
+                case "category":
+                    this.category = pool != null ? reader.nextString(pool) : reader.nextString();
+                    break;
+                case "image":
+                    this.image = reader.nextString();
+                    break;
+                case "availability":
+                    this.availability = pool != null ? reader.nextString(pool) : reader.nextString();
+                    break;
+                case "rating":
+                    readRating(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readDescription(JsonStreamReader reader, int limit) throws IOException {
+        if (limit < 0) {
+            this.description = reader.nextString();
+            return;
+        }
+        // Un carácter de más alcanza para saber si hubo recorte
+        String text = reader.nextString(limit + 1);
+        this.summary = text.length() > limit;
+        if (summary) {
+            // Sin cortar un par sustituto (emoji) por la mitad
+            int end = limit > 0 && Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+            text = text.substring(0, end);
+        }
+        this.description = text;
+    }
+
+    private void readRating(JsonStreamReader reader) throws IOException {
+        if (reader.peek() != JsonStreamReader.Token.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("rate".equals(name) && reader.peek() == JsonStreamReader.Token.NUMBER) {
+                this.rating = reader.nextDouble();
+            } else if ("count".equals(name) && reader.peek() == JsonStreamReader.Token.NUMBER) {
+                this.ratingCount = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     // ========== MÉTODOS DE CONVERSIÓN ==========
 
     /**
@@ -160,11 +300,34 @@ public class Product implements Serializable {
         return availability;
     }
 
+    /**
+     * true si es la versión resumida de la lista (descripción recortada)
+     * Antes de editarlo o enviarlo al API hace falta el producto completo.
+     */
+    public boolean isSummary() {
+        return summary;
+    }
+
     /**
      * Verifica si el producto está en stock
      */
     public boolean isInStock() {
-        return "InStock".equalsIgnoreCase(availability);
+        return isInStock(availability);
+    }
+
+    /**
+     * Si el valor de availability indica stock
+     * Los valores parseados vienen del StringPool: casi siempre alcanza con
+     * comparar referencias y no se recorre el texto.
+     */
+    public static boolean isInStock(String availability) {
+        if (availability == IN_STOCK) {
+            return true;
+        }
+        if (availability == OUT_OF_STOCK || availability == null) {
+            return false;
+        }
+        return IN_STOCK.equalsIgnoreCase(availability);
     }
 
     // ========== SETTERS ==========
@@ -185,8 +348,18 @@ public class Product implements Serializable {
         }
     }
 
+    /**
+     * Precio tal como se guardó, sin validar (ProductCodec)
+     * Los parsers aceptan precios negativos de la API; al decodificar hay
+     * que devolver el mismo valor en lugar de fallar.
+     */
+    void restorePrice(double price) {
+        this.price = price;
+    }
+
     public void setDescription(String description) {
         this.description = description;
+        this.summary = false;
     }
 
     public void setCategory(String category) {
@@ -209,6 +382,10 @@ public class Product implements Serializable {
         this.availability = availability;
     }
 
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
     // ========== MÉTODOS AUXILIARES ==========
 
     /**
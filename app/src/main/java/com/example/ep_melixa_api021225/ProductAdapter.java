@@ -4,120 +4,335 @@ import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
 import android.widget.ImageButton;
+import android.widget.ImageView;
 import android.widget.TextView;
-import java.util.ArrayList;
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+import java.util.List;
 import java.util.Locale;
 
-public class ProductAdapter extends BaseAdapter {
+/**
+ * Adapter de productos para RecyclerView
+ *
+ * Las diferencias entre la lista mostrada y el ProductStore se calculan en
+ * segundo plano (AsyncListDiffer). Cada cambio lleva un payload con los
+ * campos modificados, así cambiar un precio vuelve a dibujar un solo TextView.
+ *
+ * El bind no crea objetos una vez visto cada producto: los textos salen de
+ * ProductDisplayCache, los colores se resuelven una vez y un único listener
+ * atiende los botones de todas las filas.
+ */
+public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ViewHolder> {
 
-    private Context context;
-    private ArrayList<Product> products;
-    private ProductActionListener listener;
+    // Payloads: campos que cambiaron entre dos versiones de un producto
+    static final int CHANGE_TITLE = 1;
+    static final int CHANGE_DESCRIPTION = 1 << 1;
+    static final int CHANGE_PRICE = 1 << 2;
+    static final int CHANGE_STOCK = 1 << 3;
+    static final int CHANGE_IMAGE = 1 << 4;
+    static final int CHANGE_ALL = CHANGE_TITLE | CHANGE_DESCRIPTION | CHANGE_PRICE | CHANGE_STOCK | CHANGE_IMAGE;
+
+    // Filas con textos ya formateados (varias pantallas de scroll)
+    private static final int DISPLAY_CACHE_SIZE = 1024;
+
+    private final Context context;
+    private final ProductStore products;
+    private final ProductActionListener listener;
+    private final AsyncListDiffer<Product> differ;
+    private final ImageLoader imageLoader;
+    private final ProductDisplayCache displayCache;
+    private final int colorInStock;
+    private final int colorOutOfStock;
+
+    // Modo paginado: si no es null las filas salen del paginador y no del store
+    private ProductPager pager;
+
+    // Resultado de una búsqueda: si no es null se muestra en lugar del store
+    private List<Product> searchResults;
+    private int sortOrder = ProductStore.ORDER_NONE;
+
+    // Si llegan cambios mientras se calcula un diff, se vuelve a diferenciar al terminar
+    private boolean diffing;
+    private boolean dirty;
 
     public interface ProductActionListener {
         void onEditProduct(Product product);
         void onDeleteProduct(Product product);
     }
 
-    public ProductAdapter(Context context, ArrayList<Product> products, ProductActionListener listener) {
+    public ProductAdapter(Context context, ProductStore products, ProductActionListener listener) {
         this.context = context;
         this.products = products;
         this.listener = listener;
+        this.differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+        this.imageLoader = ImageLoader.getInstance(context);
+        this.displayCache = new ProductDisplayCache(DISPLAY_CACHE_SIZE, Locale.getDefault());
+        this.colorInStock = ContextCompat.getColor(context, android.R.color.darker_gray);
+        this.colorOutOfStock = ContextCompat.getColor(context, android.R.color.holo_red_dark);
+        setHasStableIds(true);
     }
 
-    @Override
-    public int getCount() {
-        return products.size();
+    /**
+     * Toma una copia del ProductStore y la diferencia con la lista mostrada
+     * Las llamadas seguidas se agrupan: solo se diferencia la última versión
+     */
+    public void refresh() {
+        if (diffing) {
+            dirty = true;
+            return;
+        }
+        diffing = true;
+        dirty = false;
+        List<Product> rows;
+        if (searchResults != null) {
+            rows = searchResults;
+        } else {
+            rows = products.snapshot(sortOrder);
+        }
+        differ.submitList(rows, new Runnable() {
+            @Override
+            public void run() {
+                diffing = false;
+                if (dirty) {
+                    refresh();
+                }
+            }
+        });
+    }
+
+    /**
+     * Muestra solo los productos indicados; null vuelve al catálogo completo
+     */
+    public void setSearchResults(List<Product> results) {
+        this.searchResults = results;
+        refresh();
+    }
+
+    /**
+     * Orden del catálogo completo (ProductStore.ORDER_*)
+     */
+    public void setSortOrder(int sortOrder) {
+        this.sortOrder = sortOrder;
+        refresh();
+    }
+
+    /**
+     * Activa el modo paginado; los cambios llegan por notifyItemRange*
+     */
+    public void setPager(ProductPager pager) {
+        this.pager = pager;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Producto de la fila; en modo paginado puede ser null (página no cargada)
+     */
+    public Product getItem(int position) {
+        return pager != null ? pager.get(position) : differ.getCurrentList().get(position);
     }
 
     @Override
-    public Object getItem(int position) {
-        return products.get(position);
+    public int getItemCount() {
+        return pager != null ? pager.getCount() : differ.getCurrentList().size();
     }
 
     @Override
     public long getItemId(int position) {
-        return position;
+        Product product = pager != null ? pager.peek(position) : differ.getCurrentList().get(position);
+        // Los marcadores usan IDs negativos por posición
+        return product != null ? stableId(product.getId()) : -2L - position;
     }
 
+    @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        ViewHolder holder;
-
-        if (convertView == null) {
-            convertView = LayoutInflater.from(context).inflate(R.layout.item_product, parent, false);
-            holder = new ViewHolder();
-            holder.tvName = convertView.findViewById(R.id.tv_product_name);
-            holder.tvDescription = convertView.findViewById(R.id.tv_product_description);
-            holder.tvPrice = convertView.findViewById(R.id.tv_product_price);
-            holder.tvStock = convertView.findViewById(R.id.tv_product_stock);
-            holder.btnEdit = convertView.findViewById(R.id.btn_edit);
-            holder.btnDelete = convertView.findViewById(R.id.btn_delete);
-            convertView.setTag(holder);
-        } else {
-            holder = (ViewHolder) convertView.getTag();
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.item_product, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+
+        // Un solo listener para todas las filas; cada botón lleva su ViewHolder
+        holder.btnEdit.setTag(holder);
+        holder.btnDelete.setTag(holder);
+        holder.btnEdit.setOnClickListener(buttonListener);
+        holder.btnDelete.setOnClickListener(buttonListener);
+
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        bind(holder, getItem(position), CHANGE_ALL);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int changes = 0;
+        for (Object payload : payloads) {
+            changes |= (Integer) payload;
         }
+        bind(holder, getItem(position), changes);
+    }
 
-        final Product product = products.get(position);
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        // La fila salió de pantalla: su imagen ya no hace falta
+        imageLoader.cancel(holder.ivImage);
+    }
 
-        // Mostrar título del producto
-        holder.tvName.setText(product.getTitle() != null ? product.getTitle() : "Sin título");
+    private final View.OnClickListener buttonListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            Product product = productAt((ViewHolder) v.getTag());
+            if (listener == null || product == null) {
+                return;
+            }
+            if (v.getId() == R.id.btn_edit) {
+                listener.onEditProduct(product);
+            } else {
+                listener.onDeleteProduct(product);
+            }
+        }
+    };
 
-        // Mostrar descripción (truncada si es muy larga)
-        String description = product.getDescription();
-        if (description != null && description.length() > 80) {
-            description = description.substring(0, 77) + "...";
+    private Product productAt(ViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        return position != RecyclerView.NO_POSITION ? getItem(position) : null;
+    }
+
+    /**
+     * Actualiza solo las vistas de los campos indicados
+     */
+    private void bind(ViewHolder holder, Product product, int changes) {
+        if (product == null) {
+            bindPlaceholder(holder);
+            return;
         }
-        holder.tvDescription.setText(description != null ? description : "Sin descripción");
 
-        // Mostrar precio
-        holder.tvPrice.setText(String.format(Locale.getDefault(), "$%.2f", product.getPrice()));
+        ProductDisplayCache.Entry display = displayCache.get(product);
 
-        // Mostrar disponibilidad
-        String stockText = product.getStockDisplay();
-        if (product.getRatingCount() > 0) {
-            stockText += String.format(Locale.getDefault(), " • ★%.1f (%d)",
-                    product.getRating(), product.getRatingCount());
+        if ((changes & CHANGE_TITLE) != 0) {
+            holder.tvName.setText(display.getTitle());
         }
-        holder.tvStock.setText(stockText);
 
-        // Cambiar color según disponibilidad
-        if (!product.isInStock()) {
-            holder.tvStock.setTextColor(context.getResources().getColor(android.R.color.holo_red_dark));
-        } else {
-            holder.tvStock.setTextColor(context.getResources().getColor(android.R.color.darker_gray));
+        if ((changes & CHANGE_DESCRIPTION) != 0) {
+            holder.tvDescription.setText(display.getDescription());
         }
 
-        // Listeners de botones
-        holder.btnEdit.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                if (listener != null) {
-                    listener.onEditProduct(product);
-                }
-            }
-        });
+        if ((changes & CHANGE_PRICE) != 0) {
+            holder.tvPrice.setText(display.getPrice());
+        }
 
-        holder.btnDelete.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                if (listener != null) {
-                    listener.onDeleteProduct(product);
-                }
+        if ((changes & CHANGE_STOCK) != 0) {
+            // Disponibilidad y calificación, con color según stock
+            holder.tvStock.setText(display.getStock());
+            holder.tvStock.setTextColor(display.isInStock() ? colorInStock : colorOutOfStock);
+        }
+
+        if ((changes & CHANGE_IMAGE) != 0) {
+            // Miniatura reducida al tamaño de la vista
+            imageLoader.load(product.getImage(), holder.ivImage, android.R.drawable.ic_menu_gallery);
+        }
+    }
+
+    /**
+     * Fila de una página que todavía no llegó
+     */
+    private void bindPlaceholder(ViewHolder holder) {
+        holder.tvName.setText("Cargando...");
+        holder.tvDescription.setText("");
+        holder.tvPrice.setText("");
+        holder.tvStock.setText("");
+        imageLoader.cancel(holder.ivImage);
+        holder.ivImage.setImageResource(android.R.drawable.ic_menu_gallery);
+    }
+
+    // ========== DIFERENCIAS ==========
+
+    /**
+     * ID estable de 64 bits a partir del ID (String) del producto (FNV-1a)
+     */
+    static long stableId(String id) {
+        long hash = 0xcbf29ce484222325L;
+        if (id != null) {
+            for (int i = 0; i < id.length(); i++) {
+                hash ^= id.charAt(i);
+                hash *= 0x100000001b3L;
             }
-        });
+        }
+        return hash;
+    }
+
+    /**
+     * Campos visibles que difieren entre dos versiones de un producto
+     */
+    static int changedFields(Product oldItem, Product newItem) {
+        int changes = 0;
+        if (!equals(oldItem.getTitle(), newItem.getTitle())) {
+            changes |= CHANGE_TITLE;
+        }
+        if (!equals(oldItem.getDescription(), newItem.getDescription())) {
+            changes |= CHANGE_DESCRIPTION;
+        }
+        if (Double.compare(oldItem.getPrice(), newItem.getPrice()) != 0) {
+            changes |= CHANGE_PRICE;
+        }
+        if (oldItem.isInStock() != newItem.isInStock()
+                || Double.compare(oldItem.getRating(), newItem.getRating()) != 0
+                || oldItem.getRatingCount() != newItem.getRatingCount()) {
+            changes |= CHANGE_STOCK;
+        }
+        if (!equals(oldItem.getImage(), newItem.getImage())) {
+            changes |= CHANGE_IMAGE;
+        }
+        return changes;
+    }
 
-        return convertView;
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
     }
 
-    static class ViewHolder {
-        TextView tvName;
-        TextView tvDescription;
-        TextView tvPrice;
-        TextView tvStock;
-        ImageButton btnEdit;
-        ImageButton btnDelete;
+    private static final DiffUtil.ItemCallback<Product> DIFF_CALLBACK = new DiffUtil.ItemCallback<Product>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return oldItem == newItem || changedFields(oldItem, newItem) == 0;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Product oldItem, @NonNull Product newItem) {
+            return changedFields(oldItem, newItem);
+        }
+    };
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final ImageView ivImage;
+        final TextView tvName;
+        final TextView tvDescription;
+        final TextView tvPrice;
+        final TextView tvStock;
+        final ImageButton btnEdit;
+        final ImageButton btnDelete;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            ivImage = itemView.findViewById(R.id.iv_product_image);
+            tvName = itemView.findViewById(R.id.tv_product_name);
+            tvDescription = itemView.findViewById(R.id.tv_product_description);
+            tvPrice = itemView.findViewById(R.id.tv_product_price);
+            tvStock = itemView.findViewById(R.id.tv_product_stock);
+            btnEdit = itemView.findViewById(R.id.btn_edit);
+            btnDelete = itemView.findViewById(R.id.btn_delete);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,271 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario compacto para productos
+ *
+ * Reemplaza a java.io.Serializable: sin reflexión ni descriptores de clase.
+ * - Enteros y longitudes como varint (1 byte para valores menores a 128)
+ * - Textos en UTF-8 precedidos por su longitud
+ * - Categoría y disponibilidad por diccionario: cada valor se escribe una
+ *   sola vez por stream y después solo su código
+ * - Una etiqueta de versión al inicio; una versión desconocida se rechaza
+ *
+ * Lista: [versión][cantidad][producto]...
+ * Producto: id, title, description, image, category, availability, price, rating, ratingCount, flags
+ * flags: bit 0 = resumen (descripción recortada, ver Product.isSummary())
+ */
+public final class ProductCodec {
+
+    static final int VERSION = 2;
+
+    private static final int FLAG_SUMMARY = 1;
+
+    // Valores conocidos: ocupan un byte desde el primer producto
+    // (el orden es parte del formato: cambiarlo obliga a subir VERSION)
+    private static final String[] KNOWN_VALUES = {
+            Product.IN_STOCK, Product.OUT_OF_STOCK,
+            "electronics", "jewelery", "men's clothing", "women's clothing"
+    };
+
+    private ProductCodec() {
+    }
+
+    // ========== LISTAS ==========
+
+    public static byte[] encode(List<Product> products) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + products.size() * 96);
+        try {
+            writeProducts(out, products);
+        } catch (IOException e) {
+            // ByteArrayOutputStream no falla
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<Product> decode(byte[] data) throws IOException {
+        return readProducts(new ByteArrayInputStream(data));
+    }
+
+    public static void writeProducts(OutputStream out, List<Product> products) throws IOException {
+        Writer writer = new Writer(out);
+        writer.writeHeader();
+        writer.writeVarint(products.size());
+        for (Product product : products) {
+            writer.writeProduct(product);
+        }
+    }
+
+    public static List<Product> readProducts(InputStream in) throws IOException {
+        Reader reader = new Reader(in);
+        reader.readHeader();
+        int count = reader.readVarint();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(reader.readProduct());
+        }
+        return products;
+    }
+
+    // ========== ESCRITURA ==========
+
+    /**
+     * Escribe productos sobre un stream compartiendo el diccionario
+     */
+    public static class Writer {
+        private final OutputStream out;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        public Writer(OutputStream out) {
+            this(out, Arrays.asList(KNOWN_VALUES));
+        }
+
+        /**
+         * Con un diccionario fijo escrito aparte (por ejemplo en la cabecera
+         * de un archivo): si contiene todos los valores, cada producto se
+         * puede leer por separado
+         */
+        Writer(OutputStream out, List<String> values) {
+            this.out = out;
+            for (String value : values) {
+                dictionary.put(value, dictionary.size());
+            }
+        }
+
+        public void writeHeader() throws IOException {
+            writeVarint(VERSION);
+        }
+
+        public void writeProduct(Product product) throws IOException {
+            writeString(product.getId());
+            writeString(product.getTitle());
+            writeString(product.getDescription());
+            writeString(product.getImage());
+            writeDictionary(product.getCategory());
+            writeDictionary(product.getAvailability());
+            writeDouble(product.getPrice());
+            writeDouble(product.getRating());
+            writeVarint(product.getRatingCount());
+            writeVarint(product.isSummary() ? FLAG_SUMMARY : 0);
+        }
+
+        public void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        /**
+         * Longitud + 1 (0 indica null) seguida de los bytes UTF-8
+         */
+        public void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            out.write(bytes);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            long bits = Double.doubleToLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        }
+
+        /**
+         * Código + 1 si el valor ya está en el diccionario; 0 y el texto si es nuevo
+         */
+        private void writeDictionary(String value) throws IOException {
+            Integer code = value != null ? dictionary.get(value) : null;
+            if (code != null) {
+                writeVarint(code + 1);
+                return;
+            }
+            writeVarint(0);
+            writeString(value);
+            if (value != null) {
+                dictionary.put(value, dictionary.size());
+            }
+        }
+    }
+
+    // ========== LECTURA ==========
+
+    /**
+     * Lee productos escritos por un Writer, reconstruyendo el mismo diccionario
+     */
+    public static class Reader {
+        private final InputStream in;
+        private final List<String> dictionary = new ArrayList<>();
+
+        public Reader(InputStream in) {
+            this(in, Arrays.asList(KNOWN_VALUES));
+        }
+
+        Reader(InputStream in, List<String> values) {
+            this.in = in;
+            dictionary.addAll(values);
+        }
+
+        public void readHeader() throws IOException {
+            int version = readVarint();
+            if (version != VERSION) {
+                throw new IOException("Versión de formato no soportada: " + version);
+            }
+        }
+
+        public Product readProduct() throws IOException {
+            Product product = new Product();
+            product.setId(readString());
+            product.setTitle(readString());
+            product.setDescription(readString());
+            product.setImage(readString());
+            product.setCategory(readDictionary());
+            product.setAvailability(readDictionary());
+            product.restorePrice(readDouble());
+            product.setRating(readDouble());
+            product.setRatingCount(readVarint());
+            product.setSummary((readVarint() & FLAG_SUMMARY) != 0);
+            return product;
+        }
+
+        public int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Varint demasiado largo");
+        }
+
+        public String readString() throws IOException {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(bytes, offset, length - offset);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public double readDouble() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | readByte();
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private String readDictionary() throws IOException {
+            int code = readVarint();
+            if (code > 0) {
+                if (code > dictionary.size()) {
+                    throw new IOException("Código de diccionario inválido: " + code);
+                }
+                return dictionary.get(code - 1);
+            }
+            // Una instancia por valor para todo el catálogo, no una por stream
+            String value = StringPool.getDefault().intern(readString());
+            if (value != null) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+    }
+}
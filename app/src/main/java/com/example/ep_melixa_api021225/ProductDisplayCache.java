@@ -0,0 +1,181 @@
+package com.example.ep_melixa_api021225;
+
+import java.text.DecimalFormatSymbols;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Textos de las filas de productos, ya formateados
+ *
+ * Cada producto se formatea una vez por versión (si cambia un campo visible
+ * se vuelve a formatear) y el resultado se guarda por ID. Volver a mostrar
+ * una fila ya vista no crea objetos: busca por ID y compara campos.
+ * El formateo usa un solo StringBuilder en lugar de String.format.
+ *
+ * Solo se usa desde el hilo principal.
+ */
+public class ProductDisplayCache {
+
+    static final int DESCRIPTION_MAX_LENGTH = 80;
+
+    /**
+     * Textos de una fila, con los valores de los que salieron
+     */
+    public static final class Entry {
+        private String title;
+        private String description;
+        private String price;
+        private String stock;
+        private boolean inStock;
+
+        // Versión formateada
+        private String sourceTitle;
+        private String sourceDescription;
+        private String sourceAvailability;
+        private double sourcePrice;
+        private double sourceRating;
+        private int sourceRatingCount;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getPrice() {
+            return price;
+        }
+
+        public String getStock() {
+            return stock;
+        }
+
+        public boolean isInStock() {
+            return inStock;
+        }
+
+        boolean isCurrent(Product product) {
+            return same(sourceTitle, product.getTitle())
+                    && same(sourceDescription, product.getDescription())
+                    && same(sourceAvailability, product.getAvailability())
+                    && Double.compare(sourcePrice, product.getPrice()) == 0
+                    && Double.compare(sourceRating, product.getRating()) == 0
+                    && sourceRatingCount == product.getRatingCount();
+        }
+
+        private static boolean same(String a, String b) {
+            return a == b || (a != null && a.equals(b));
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private final Entry scratch = new Entry();     // productos sin ID (no se guardan)
+    private final StringBuilder builder = new StringBuilder(96);
+    private final char decimalSeparator;
+
+    public ProductDisplayCache(final int maxEntries, Locale locale) {
+        // Orden de acceso: se descartan las filas vistas hace más tiempo
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProductDisplayCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.decimalSeparator = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+    }
+
+    /**
+     * Textos del producto; se formatean solo si no están o cambió la versión
+     */
+    public Entry get(Product product) {
+        String id = product.getId();
+        if (id == null || id.isEmpty()) {
+            format(scratch, product);
+            return scratch;
+        }
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            entry = new Entry();
+            format(entry, product);
+            entries.put(id, entry);
+        } else if (!entry.isCurrent(product)) {
+            format(entry, product);
+        }
+        return entry;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    // ========== FORMATO ==========
+
+    private void format(Entry entry, Product product) {
+        entry.sourceTitle = product.getTitle();
+        entry.sourceDescription = product.getDescription();
+        entry.sourceAvailability = product.getAvailability();
+        entry.sourcePrice = product.getPrice();
+        entry.sourceRating = product.getRating();
+        entry.sourceRatingCount = product.getRatingCount();
+
+        String title = product.getTitle();
+        entry.title = title != null ? title : "Sin título";
+
+        // Descripción truncada si es muy larga
+        String description = product.getDescription();
+        if (description == null) {
+            entry.description = "Sin descripción";
+        } else if (description.length() > DESCRIPTION_MAX_LENGTH) {
+            builder.setLength(0);
+            entry.description = builder.append(description, 0, DESCRIPTION_MAX_LENGTH - 3)
+                    .append("...").toString();
+        } else {
+            entry.description = description;
+        }
+
+        builder.setLength(0);
+        builder.append('$');
+        appendFixed(builder, product.getPrice(), 2);
+        entry.price = builder.toString();
+
+        // Disponibilidad y calificación: "En Stock • ★4.5 (120)"
+        entry.inStock = product.isInStock();
+        if (product.getRatingCount() > 0) {
+            builder.setLength(0);
+            builder.append(product.getStockDisplay()).append(" • ★");
+            appendFixed(builder, product.getRating(), 1);
+            builder.append(" (").append(product.getRatingCount()).append(')');
+            entry.stock = builder.toString();
+        } else {
+            entry.stock = product.getStockDisplay();
+        }
+    }
+
+    /**
+     * Agrega value con la cantidad fija de decimales (redondeo half-up)
+     * y el separador decimal del idioma
+     */
+    void appendFixed(StringBuilder out, double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / scale).append(decimalSeparator);
+        long fraction = scaled % scale;
+        for (long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
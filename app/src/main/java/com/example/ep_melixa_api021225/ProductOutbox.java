@@ -0,0 +1,580 @@
+package com.example.ep_melixa_api021225;
+
+import android.content.Context;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola persistente de altas, cambios y bajas de productos
+ *
+ * La UI aplica cada cambio en el momento y lo deja aquí; la cola lo guarda
+ * en disco y lo envía al API en segundo plano, en orden, reintentando con
+ * espera exponencial si falla la red. Si el proceso muere, los cambios
+ * pendientes se leen del archivo al volver a abrir la app.
+ *
+ * Registrar un cambio no toca el disco: el archivo lo reescribe un hilo
+ * propio ("outbox-disk") fuera del monitor de la cola, así la UI no espera
+ * ni a la escritura ni al envío en curso. Varios cambios seguidos se
+ * guardan en una sola escritura con el estado más reciente.
+ *
+ * Se guarda a lo sumo una operación pendiente por producto:
+ * - CREATE + UPDATE = CREATE con los datos nuevos
+ * - CREATE + DELETE = nada (el producto nunca llega al servidor)
+ * - UPDATE + UPDATE = el último UPDATE
+ * - UPDATE + DELETE = DELETE
+ *
+ * Un alta (POST) no es idempotente: solo se reintenta si seguro no llegó al
+ * servidor (no hubo conexión, circuito abierto o 429). Un timeout, un corte
+ * o un 5xx después de enviarla no dicen si el producto se creó, así que el
+ * alta se da por fallida (onFailed) en lugar de arriesgar un duplicado; la
+ * pantalla vuelve a cargar el catálogo y ahí aparece si el servidor la tomó.
+ */
+public class ProductOutbox {
+
+    private static final String FILE_NAME = "product_outbox.json";
+    private static final String LOCAL_ID_PREFIX = "local-";
+    private static final long INITIAL_BACKOFF = 2000;              // ms
+    private static final long MAX_BACKOFF = 5 * 60 * 1000;         // ms
+
+    private static ProductOutbox instance;
+
+    /**
+     * Resultado del envío de cada operación (en el hilo principal)
+     */
+    public interface Listener {
+        /**
+         * El servidor aceptó la operación; en un CREATE el resultado trae el ID definitivo
+         */
+        void onApplied(Mutation mutation, Product result);
+
+        /**
+         * El servidor rechazó la operación, o un alta quedó sin confirmar, y
+         * se descartó (no se reintenta)
+         */
+        void onFailed(Mutation mutation, Exception error);
+
+        void onPendingChanged(int pending);
+    }
+
+    /**
+     * Una operación pendiente sobre un producto
+     */
+    public static class Mutation {
+        public enum Type { CREATE, UPDATE, DELETE }
+
+        private final Type type;
+        private final Product product;
+        private int attempts;
+
+        Mutation(Type type, Product product) {
+            this.type = type;
+            this.product = product;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    private final ProductRepository repository;
+    private final File file;
+    private final Executor callbackExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService writer;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    // Operaciones por ID de producto (local o del servidor), en orden de llegada
+    private final LinkedHashMap<String, Mutation> pending = new LinkedHashMap<>();
+    // ID local -> ID asignado por el servidor al confirmar el CREATE
+    private final Map<String, String> assignedIds = new HashMap<>();
+    private Mutation sending;               // operación en vuelo (o esperando reintento)
+    private ScheduledFuture<?> scheduled;   // próximo envío programado
+    private boolean started;
+    private boolean saveRequested;          // hay una escritura del archivo por hacer
+    private Listener listener;
+
+    public ProductOutbox(ProductRepository repository, File file, Executor callbackExecutor) {
+        this(repository, file, callbackExecutor, INITIAL_BACKOFF, MAX_BACKOFF);
+    }
+
+    ProductOutbox(ProductRepository repository, File file, Executor callbackExecutor,
+                  long initialBackoff, long maxBackoff) {
+        this.repository = repository;
+        this.file = file;
+        this.callbackExecutor = callbackExecutor;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("outbox"));
+        this.writer = Executors.newSingleThreadExecutor(daemonThreads("outbox-disk"));
+        load();
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Instancia compartida; empieza a enviar lo que haya quedado pendiente
+     */
+    public static synchronized ProductOutbox getInstance(Context context) {
+        if (instance == null) {
+            File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+            instance = new ProductOutbox(ProductRepository.getInstance(context), file, new MainThreadExecutor());
+            instance.start();
+        }
+        return instance;
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Quita el listener solo si sigue siendo ese (otro pudo reemplazarlo)
+     */
+    public synchronized void removeListener(Listener listener) {
+        if (this.listener == listener) {
+            this.listener = null;
+        }
+    }
+
+    /**
+     * Activa el envío en segundo plano
+     */
+    public synchronized void start() {
+        started = true;
+        schedule(0);
+    }
+
+    public static boolean isLocalId(String id) {
+        return id != null && id.startsWith(LOCAL_ID_PREFIX);
+    }
+
+    // ========== OPERACIONES ==========
+
+    /**
+     * Registra un alta; devuelve una copia con ID local para mostrarla ya en la lista
+     */
+    public Product create(Product product) {
+        Product local = new Product(product);
+        local.setId(LOCAL_ID_PREFIX + UUID.randomUUID());
+        enqueue(Mutation.Type.CREATE, local);
+        return local;
+    }
+
+    public void update(Product product) {
+        enqueue(Mutation.Type.UPDATE, new Product(product));
+    }
+
+    public void delete(Product product) {
+        enqueue(Mutation.Type.DELETE, new Product(product));
+    }
+
+    /**
+     * Operaciones aún no confirmadas, en el orden en que se enviarán
+     * (para volver a aplicarlas sobre un catálogo recién descargado)
+     */
+    public synchronized List<Mutation> getPending() {
+        List<Mutation> mutations = new ArrayList<>(pending.size() + 1);
+        if (sending != null) {
+            mutations.add(sending);
+        }
+        mutations.addAll(pending.values());
+        return mutations;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size() + (sending != null ? 1 : 0);
+    }
+
+    // ========== ENVÍO ==========
+
+    /**
+     * Envía las operaciones pendientes, en orden, hasta vaciar la cola
+     *
+     * @return true si no queda nada; false si un error de red obliga a reintentar
+     */
+    boolean flush() {
+        while (true) {
+            final Mutation mutation;
+            synchronized (this) {
+                if (sending == null) {
+                    Iterator<Mutation> iterator = pending.values().iterator();
+                    if (!iterator.hasNext()) {
+                        scheduled = null;
+                        return true;
+                    }
+                    sending = iterator.next();
+                    iterator.remove();
+                }
+                mutation = sending;
+            }
+
+            Product result;
+            try {
+                result = send(mutation);
+            } catch (Exception e) {
+                if (canRetry(mutation.type, e)) {
+                    synchronized (this) {
+                        mutation.attempts++;
+                        requestSave();
+                    }
+                    return false;
+                }
+                e.printStackTrace();
+                synchronized (this) {
+                    sending = null;
+                    if (mutation.type == Mutation.Type.CREATE) {
+                        // Lo que quedó detrás se refería a un producto que no existe
+                        pending.remove(mutation.product.getId());
+                    }
+                    requestSave();
+                }
+                notifyFailed(mutation, e);
+                continue;
+            }
+
+            synchronized (this) {
+                sending = null;
+                if (mutation.type == Mutation.Type.CREATE) {
+                    onCreated(mutation.product.getId(), result.getId());
+                }
+                requestSave();
+            }
+            notifyApplied(mutation, result);
+        }
+    }
+
+    private Product send(Mutation mutation) throws IOException, JSONException {
+        switch (mutation.type) {
+            case CREATE:
+                // El ID local no viaja al servidor
+                Product product = new Product(mutation.product);
+                product.setId("");
+                return repository.createProduct(product);
+            case UPDATE:
+                return repository.updateProduct(mutation.product);
+            default:
+                try {
+                    repository.deleteProduct(mutation.product.getId());
+                } catch (ApiException e) {
+                    // Ya no existe: el resultado es el mismo
+                    if (e.getStatusCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                        throw e;
+                    }
+                }
+                return mutation.product;
+        }
+    }
+
+    /**
+     * Los errores de red, 5xx, 408 y 429 se reintentan; el resto son definitivos
+     */
+    static boolean isRetryable(Exception error) {
+        return ApiClient.isRetryable(error);
+    }
+
+    /**
+     * Si se puede volver a enviar la operación después de este error
+     * Un CREATE solo si no llegó al servidor (ver la descripción de la clase).
+     */
+    static boolean canRetry(Mutation.Type type, Exception error) {
+        if (!isRetryable(error)) {
+            return false;
+        }
+        if (type != Mutation.Type.CREATE) {
+            return true;
+        }
+        ApiMetrics.ErrorCause cause = ApiMetrics.ErrorCause.of(error);
+        return cause == ApiMetrics.ErrorCause.CONNECT || cause == ApiMetrics.ErrorCause.CIRCUIT_OPEN
+                || (error instanceof ApiException && ((ApiException) error).getStatusCode() == 429);
+    }
+
+    /**
+     * Espera antes del reintento: exponencial desde initialBackoff, con tope
+     */
+    long backoff(int attempts) {
+        long delay = initialBackoff << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoff);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private synchronized void enqueue(Mutation.Type type, Product product) {
+        // Cambios sobre la copia local de un producto que ya se creó en el servidor
+        String assigned = assignedIds.get(product.getId());
+        if (assigned != null) {
+            product.setId(assigned);
+        }
+
+        String key = product.getId();
+        Mutation previous = pending.get(key);
+        Mutation next = new Mutation(type, product);
+        if (previous != null) {
+            if (previous.type == Mutation.Type.DELETE) {
+                return;
+            }
+            if (previous.type == Mutation.Type.CREATE) {
+                if (type == Mutation.Type.DELETE) {
+                    pending.remove(key);
+                    requestSave();
+                    notifyPendingChanged();
+                    return;
+                }
+                next = new Mutation(Mutation.Type.CREATE, product);
+            }
+            next.attempts = previous.attempts;
+        }
+        // Reemplazar una clave existente conserva su lugar en la cola
+        pending.put(key, next);
+        requestSave();
+        notifyPendingChanged();
+        schedule(0);
+    }
+
+    /**
+     * El servidor asignó un ID: lo pendiente sobre el ID local pasa al definitivo
+     */
+    private void onCreated(String localId, String serverId) {
+        if (serverId == null || serverId.isEmpty() || serverId.equals(localId)) {
+            return;
+        }
+        assignedIds.put(localId, serverId);
+        if (!pending.containsKey(localId)) {
+            return;
+        }
+        LinkedHashMap<String, Mutation> remapped = new LinkedHashMap<>();
+        for (Map.Entry<String, Mutation> entry : pending.entrySet()) {
+            Mutation mutation = entry.getValue();
+            if (entry.getKey().equals(localId)) {
+                mutation.product.setId(serverId);
+                remapped.put(serverId, mutation);
+            } else {
+                remapped.put(entry.getKey(), mutation);
+            }
+        }
+        pending.clear();
+        pending.putAll(remapped);
+    }
+
+    private synchronized void schedule(long delay) {
+        if (!started) {
+            return;
+        }
+        if (scheduled != null && !scheduled.isDone()) {
+            // Ya hay un envío en curso o programado antes
+            if (scheduled.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+                return;
+            }
+            scheduled.cancel(false);
+        }
+        scheduled = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (!flush()) {
+                    synchronized (ProductOutbox.this) {
+                        scheduled = null;
+                        schedule(backoff(sending != null ? sending.attempts : 1));
+                    }
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Programa una escritura del archivo en el hilo de disco
+     * Si ya hay una esperando, esa misma toma el estado nuevo.
+     */
+    private synchronized void requestSave() {
+        if (saveRequested) {
+            return;
+        }
+        saveRequested = true;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                String contents;
+                synchronized (ProductOutbox.this) {
+                    saveRequested = false;
+                    // En memoria y bajo el monitor (el hilo de envío cambia IDs e intentos);
+                    // la escritura, que es lo lento, va afuera
+                    contents = serialize();
+                }
+                if (contents != null) {
+                    write(contents);
+                }
+            }
+        });
+    }
+
+    /**
+     * Espera a que se escriban los cambios registrados hasta ahora
+     */
+    void awaitSaved() throws InterruptedException {
+        try {
+            writer.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cola completa en JSON, o null si no se pudo armar
+     */
+    private synchronized String serialize() {
+        JSONArray array = new JSONArray();
+        try {
+            for (Mutation mutation : getPending()) {
+                JSONObject product = mutation.product.toJSON();
+                product.put("id", mutation.product.getId());
+                product.put("rating", new JSONObject()
+                        .put("rate", mutation.product.getRating())
+                        .put("count", mutation.product.getRatingCount()));
+
+                JSONObject json = new JSONObject();
+                json.put("type", mutation.type.name());
+                json.put("attempts", mutation.attempts);
+                json.put("product", product);
+                array.put(json);
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return array.toString();
+    }
+
+    /**
+     * Escribe la cola en un archivo temporal y lo renombra
+     * Solo desde el hilo de disco: es el único que toca el archivo.
+     */
+    private void write(String contents) {
+        File temp = new File(file.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(contents.getBytes("UTF-8"));
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                throw new IOException("No se pudo guardar " + file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+        } finally {
+            if (out != null) {
+                try { out.close(); } catch (IOException e) { e.printStackTrace(); }
+            }
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            JSONArray array = new JSONArray(ApiClient.readFully(in));
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject json = array.getJSONObject(i);
+                Mutation mutation = new Mutation(Mutation.Type.valueOf(json.getString("type")),
+                        new Product(json.getJSONObject("product")));
+                mutation.attempts = json.optInt("attempts", 0);
+                pending.put(mutation.product.getId(), mutation);
+            }
+        } catch (IOException | JSONException | IllegalArgumentException e) {
+            // Archivo dañado: se empieza con la cola vacía
+            e.printStackTrace();
+            pending.clear();
+        } finally {
+            ApiClient.closeQuietly(in);
+        }
+    }
+
+    private void notifyApplied(final Mutation mutation, final Product result) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Listener current = currentListener();
+                if (current != null) {
+                    current.onApplied(mutation, result);
+                }
+            }
+        });
+        notifyPendingChanged();
+    }
+
+    private void notifyFailed(final Mutation mutation, final Exception error) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Listener current = currentListener();
+                if (current != null) {
+                    current.onFailed(mutation, error);
+                }
+            }
+        });
+        notifyPendingChanged();
+    }
+
+    private void notifyPendingChanged() {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Listener current = currentListener();
+                if (current != null) {
+                    current.onPendingChanged(getPendingCount());
+                }
+            }
+        });
+    }
+
+    private synchronized Listener currentListener() {
+        return listener;
+    }
+}
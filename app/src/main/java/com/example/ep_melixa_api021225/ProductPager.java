@@ -0,0 +1,251 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Carga paginada del catálogo con ventana de páginas
+ *
+ * Solo se mantienen en memoria las páginas cercanas a la posición visible.
+ * Al acercarse al final de una página se pide la siguiente, y las páginas
+ * lejanas se descartan al superar el máximo o cuando falta memoria.
+ * Las filas de páginas no cargadas se muestran como marcadores (null).
+ *
+ * Todos los métodos públicos se llaman desde el hilo principal.
+ */
+public class ProductPager {
+
+    /**
+     * Origen de las páginas (normalmente la API)
+     */
+    public interface PageSource {
+        List<Product> loadPage(int page, int pageSize) throws IOException;
+    }
+
+    /**
+     * Cambios para la UI, en posiciones de la lista completa
+     */
+    public interface Listener {
+        void onRangeChanged(int start, int count);
+        void onCountChanged(int oldCount, int newCount);
+        void onError(Exception error);
+    }
+
+    private final PageSource source;
+    private final Executor backgroundExecutor;
+    private final Executor mainExecutor;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int maxPages;
+
+    private final Map<Integer, List<Product>> pages = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private Listener listener;
+
+    private int count = 0;              // filas conocidas (cargadas o marcadores)
+    private int lastPage = -1;          // última página del catálogo, -1 si aún no se conoce
+    private int currentPage = 0;        // página de la última posición pedida
+    private int generation = 0;         // invalida resultados de cargas anteriores
+
+    public ProductPager(PageSource source, Executor backgroundExecutor, Executor mainExecutor,
+                        int pageSize, int prefetchDistance, int maxPages) {
+        if (pageSize <= 0 || maxPages < 3) {
+            throw new IllegalArgumentException("Configuración de páginas inválida");
+        }
+        this.source = source;
+        this.backgroundExecutor = backgroundExecutor;
+        this.mainExecutor = mainExecutor;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.maxPages = maxPages;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Pide la primera página
+     */
+    public void start() {
+        ensureLoaded(0);
+    }
+
+    // ========== CONSULTAS ==========
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Producto en la posición, o null si su página no está cargada
+     * Además dispara la carga de esa página y la anticipada de la siguiente
+     */
+    public Product get(int position) {
+        int page = position / pageSize;
+        int offset = position % pageSize;
+        currentPage = page;
+
+        ensureLoaded(page);
+        if (offset >= pageSize - prefetchDistance) {
+            ensureLoaded(page + 1);
+        } else if (offset < prefetchDistance && page > 0) {
+            ensureLoaded(page - 1);
+        }
+        return peek(position);
+    }
+
+    /**
+     * Igual que get() pero sin efectos (no dispara cargas)
+     */
+    public Product peek(int position) {
+        List<Product> items = pages.get(position / pageSize);
+        int offset = position % pageSize;
+        return items != null && offset < items.size() ? items.get(offset) : null;
+    }
+
+    // ========== MODIFICACIONES ==========
+
+    /**
+     * Reemplaza un producto ya cargado (por ID); devuelve false si no está en memoria
+     */
+    public boolean update(Product product) {
+        for (Map.Entry<Integer, List<Product>> entry : pages.entrySet()) {
+            List<Product> items = entry.getValue();
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).getId().equals(product.getId())) {
+                    items.set(i, product);
+                    if (listener != null) {
+                        listener.onRangeChanged(entry.getKey() * pageSize + i, 1);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Descarta las páginas y vuelve a pedir solo las de la ventana actual
+     * (después de altas o bajas, que desplazan las posiciones)
+     */
+    public void invalidate() {
+        generation++;
+        pages.clear();
+        loading.clear();
+        lastPage = -1;
+        ensureLoaded(currentPage);
+        ensureLoaded(currentPage + 1);
+        if (currentPage > 0) {
+            ensureLoaded(currentPage - 1);
+        }
+    }
+
+    /**
+     * Ante presión de memoria se conservan solo la página actual y sus vecinas
+     */
+    public void trimMemory() {
+        Iterator<Integer> iterator = pages.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (Math.abs(iterator.next() - currentPage) > 1) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void ensureLoaded(final int page) {
+        if (page < 0 || (lastPage >= 0 && page > lastPage)
+                || pages.containsKey(page) || loading.contains(page)) {
+            return;
+        }
+        loading.add(page);
+
+        final int requestGeneration = generation;
+        backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final List<Product> items = source.loadPage(page, pageSize);
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            onPageLoaded(requestGeneration, page, items);
+                        }
+                    });
+                } catch (final Exception e) {
+                    e.printStackTrace();
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (requestGeneration == generation) {
+                                loading.remove(page);
+                                if (listener != null) {
+                                    listener.onError(e);
+                                }
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void onPageLoaded(int requestGeneration, int page, List<Product> items) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading.remove(page);
+        pages.put(page, new ArrayList<>(items));
+
+        int start = page * pageSize;
+        int oldCount = count;
+        if (items.size() < pageSize) {
+            // Página incompleta: es la última del catálogo
+            lastPage = page;
+            count = start + items.size();
+        } else if (lastPage < 0 || page < lastPage) {
+            count = Math.max(count, start + items.size());
+        }
+
+        // Filas que antes eran marcadores y ahora tienen datos
+        int changed = Math.min(oldCount, count) - start;
+        if (listener != null) {
+            if (changed > 0) {
+                listener.onRangeChanged(start, Math.min(changed, items.size()));
+            }
+            if (oldCount != count) {
+                listener.onCountChanged(oldCount, count);
+            }
+        }
+
+        evictFarPages();
+    }
+
+    /**
+     * Mantiene a lo sumo maxPages páginas, descartando las más lejanas
+     */
+    private void evictFarPages() {
+        while (pages.size() > maxPages) {
+            int farthest = -1;
+            for (int page : pages.keySet()) {
+                if (farthest < 0 || Math.abs(page - currentPage) > Math.abs(farthest - currentPage)) {
+                    farthest = page;
+                }
+            }
+            pages.remove(farthest);
+        }
+    }
+}
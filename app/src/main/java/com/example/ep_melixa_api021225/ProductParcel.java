@@ -0,0 +1,66 @@
+package com.example.ep_melixa_api021225;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Productos empaquetados para Intent y estado guardado
+ *
+ * El contenido viaja como un solo arreglo de bytes en el formato de
+ * ProductCodec, así Product no depende de clases de Android.
+ */
+public class ProductParcel implements Parcelable {
+
+    private final List<Product> products;
+
+    public ProductParcel(List<Product> products) {
+        this.products = products;
+    }
+
+    public ProductParcel(Product product) {
+        this(Collections.singletonList(product));
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * El único producto, o null si viene vacío
+     */
+    public Product getProduct() {
+        return products.isEmpty() ? null : products.get(0);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeByteArray(ProductCodec.encode(products));
+    }
+
+    public static final Creator<ProductParcel> CREATOR = new Creator<ProductParcel>() {
+        @Override
+        public ProductParcel createFromParcel(Parcel source) {
+            try {
+                return new ProductParcel(ProductCodec.decode(source.createByteArray()));
+            } catch (IOException e) {
+                // Datos de otra versión del formato: se descartan
+                e.printStackTrace();
+                return new ProductParcel(new ArrayList<Product>());
+            }
+        }
+
+        @Override
+        public ProductParcel[] newArray(int size) {
+            return new ProductParcel[size];
+        }
+    };
+}
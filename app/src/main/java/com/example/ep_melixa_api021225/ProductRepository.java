@@ -0,0 +1,895 @@
+package com.example.ep_melixa_api021225;
+
+import android.content.Context;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Repositorio de productos
+ *
+ * Única puerta de entrada a /products. Todas las operaciones CRUD pasan por
+ * el mismo ApiClient, así comparten el pool de conexiones y los hilos de
+ * fondo (TaskScheduler). Las altas, cambios y bajas son síncronos: los
+ * llama ProductOutbox desde su propio hilo. Las lecturas para la UI tienen
+ * versiones con Callback, que corren en segundo plano y responden en el
+ * hilo principal; las que reciben un TaskScope no responden después de
+ * cancelarlo.
+ *
+ * El catálogo y las páginas se leen como productos resumidos (la descripción
+ * recortada a LIST_DESCRIPTION_LENGTH): alcanza para las filas y, con miles
+ * de productos, ahorra memoria y copias. El producto completo se pide por
+ * ID recién al editarlo (loadProductDetail) y los últimos quedan en memoria.
+ */
+public class ProductRepository {
+
+    private static final String PATH_PRODUCTS = "/products";
+    private static final int BATCH_SIZE = 50;   // productos por entrega a la UI
+    private static final long CACHE_SIZE = 10 * 1024 * 1024;   // 10 MB
+    private static final String SNAPSHOT_FILE = "catalog.snapshot";
+    private static final int DETAIL_CACHE_SIZE = 32;   // productos completos en memoria
+
+    // Caracteres de descripción en la lista: más de lo que muestra una fila
+    // (ProductDisplayCache.DESCRIPTION_MAX_LENGTH) para que el recorte no se note
+    static final int LIST_DESCRIPTION_LENGTH = 120;
+
+    // Resultado de fetchProducts cuando no hizo falta volver a parsear
+    static final int NOT_MODIFIED = -1;
+
+    private static ProductRepository instance;
+
+    private final ApiClient client;
+    private final Executor callbackExecutor;
+    private final HttpDiskCache cache;
+    private final File snapshotFile;
+
+    // Validador (ETag o Last-Modified) del último catálogo entregado
+    private volatile String deliveredVersion;
+
+    // Descarga del catálogo en curso; quien lo pida mientras tanto se suma a ella
+    private CatalogLoad inFlight;
+    // Cambia con cada alta/cambio/baja confirmada: una descarga anterior queda vieja
+    private int catalogGeneration;
+    // Último catálogo completo descargado (null si hubo cambios después)
+    private List<Product> lastCatalog;
+    // Versión guardada en snapshotFile por esta instancia (se cambia con snapshotLock)
+    private volatile String snapshotVersion;
+    // Una escritura del snapshot a la vez: la sincronización de fondo y una
+    // carga de la UI pueden terminar juntas en hilos distintos
+    private final Object snapshotLock = new Object();
+    // Últimos productos completos pedidos por ID, en orden de acceso
+    private final Map<String, Product> details = new LinkedHashMap<String, Product>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Product> eldest) {
+            return size() > DETAIL_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Resultado de una operación asíncrona
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+        void onError(Exception error);
+    }
+
+    /**
+     * Callback de la carga por streaming
+     * onBatch llega varias veces en orden; onSuccess recibe el total
+     */
+    public interface BatchCallback extends Callback<Integer> {
+        /**
+         * @param first true en el primer lote de un catálogo: reemplaza lo recibido antes
+         */
+        void onBatch(List<Product> batch, boolean first);
+
+        /**
+         * El catálogo que ya muestra la UI sigue vigente (HTTP 304)
+         */
+        void onNotModified();
+    }
+
+    public ProductRepository(ApiClient client, Executor callbackExecutor) {
+        this(client, callbackExecutor, null);
+    }
+
+    /**
+     * @param cache caché en disco para el catálogo, o null para no usarla
+     */
+    public ProductRepository(ApiClient client, Executor callbackExecutor, HttpDiskCache cache) {
+        this(client, callbackExecutor, cache, null);
+    }
+
+    /**
+     * @param snapshotFile copia binaria del último catálogo (ver CatalogSnapshot), o null
+     */
+    public ProductRepository(ApiClient client, Executor callbackExecutor, HttpDiskCache cache,
+                             File snapshotFile) {
+        this.client = client;
+        this.callbackExecutor = callbackExecutor;
+        this.cache = cache;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Instancia compartida, entrega resultados en el hilo principal
+     */
+    public static synchronized ProductRepository getInstance(Context context) {
+        if (instance == null) {
+            File cacheDir = context.getApplicationContext().getCacheDir();
+            // Producción o un servidor local (-PapiBaseUrl=..., ver app/build.gradle.kts)
+            ApiClient.configure(BuildConfig.API_BASE_URL);
+            instance = new ProductRepository(ApiClient.getInstance(), new MainThreadExecutor(),
+                    new HttpDiskCache(new File(cacheDir, "http"), CACHE_SIZE),
+                    new File(cacheDir, SNAPSHOT_FILE));
+        }
+        return instance;
+    }
+
+    // ========== OPERACIONES SÍNCRONAS ==========
+
+    /**
+     * GET /products por streaming
+     * Cada producto se entrega al listener apenas se decodifica
+     */
+    public int streamProducts(ProductStreamParser.Listener listener) throws IOException {
+        return fetchProducts(listener, false);
+    }
+
+    /**
+     * GET condicional de /products
+     *
+     * Envía If-None-Match / If-Modified-Since con los validadores guardados.
+     * Un 200 se parsea mientras se copia a la caché; un 304 se lee desde disco
+     * (del snapshot binario si es de la misma versión, si no del JSON), salvo
+     * que quien llama ya tenga esa misma versión (hasCurrent): en ese caso
+     * devuelve NOT_MODIFIED sin volver a parsear.
+     *
+     * Si la API no responde (red, 5xx o circuito abierto) y hay una copia en
+     * disco, se entrega esa copia como si fuera un 304.
+     */
+    int fetchProducts(ProductStreamParser.Listener listener, boolean hasCurrent) throws IOException {
+        return fetchCatalog(listener, hasCurrent ? deliveredVersion : null, true);
+    }
+
+    /**
+     * @param currentVersion versión que quien llama ya tiene (NOT_MODIFIED si sigue vigente), o null
+     * @param delivering     true si el resultado llega a la UI: actualiza deliveredVersion
+     */
+    private int fetchCatalog(final ProductStreamParser.Listener listener, final String currentVersion,
+                             final boolean delivering) throws IOException {
+        final String url = client.getBaseUrl() + PATH_PRODUCTS;
+        final HttpDiskCache.Entry cached = cache != null ? cache.get(url) : null;
+
+        Map<String, String> headers = null;
+        if (cached != null) {
+            headers = new HashMap<>();
+            if (cached.getEtag() != null) {
+                headers.put("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                headers.put("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        // true en cuanto el listener pudo recibir productos de esta respuesta
+        final boolean[] started = new boolean[1];
+        try {
+            return client.execute("GET", PATH_PRODUCTS, null, headers, new ApiClient.ResponseHandler<Integer>() {
+                @Override
+                public Integer handle(int code, InputStream body, HttpURLConnection conn) throws IOException {
+                    if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                        started[0] = true;
+                        return readCached(cached, listener, currentVersion, delivering,
+                                ApiMetrics.CacheResult.NOT_MODIFIED);
+                    }
+
+                    if (code != HttpURLConnection.HTTP_OK) {
+                        throw new ApiException(code, "Error al obtener productos");
+                    }
+                    client.getMetrics().recordCache(ApiMetrics.CacheResult.MISS);
+                    started[0] = true;
+                    // Catálogo nuevo: los detalles guardados pueden estar viejos
+                    clearDetails();
+
+                    String etag = conn.getHeaderField("ETag");
+                    String lastModified = conn.getHeaderField("Last-Modified");
+                    if (cache == null || (etag == null && lastModified == null)) {
+                        if (delivering) {
+                            deliveredVersion = null;
+                        }
+                        return ProductStreamParser.parse(body, LIST_DESCRIPTION_LENGTH, listener);
+                    }
+
+                    // Parsear y guardar en disco en una sola pasada (el JSON completo)
+                    HttpDiskCache.Editor editor = cache.edit(url);
+                    try {
+                        int count = ProductStreamParser.parse(editor.wrap(body), LIST_DESCRIPTION_LENGTH, listener);
+                        editor.commit(etag, lastModified);
+                        if (delivering) {
+                            deliveredVersion = etag != null ? etag : lastModified;
+                        }
+                        return count;
+                    } catch (IOException | RuntimeException e) {
+                        editor.abort();
+                        throw e;
+                    }
+                }
+            });
+        } catch (IOException e) {
+            if (cached == null || started[0] || !ApiClient.isRetryable(e)) {
+                throw e;
+            }
+            // API caída: mejor el último catálogo conocido que un error
+            return readCached(cached, listener, currentVersion, delivering, ApiMetrics.CacheResult.STALE);
+        }
+    }
+
+    /**
+     * Entrega el catálogo guardado en disco, o NOT_MODIFIED si quien llama ya lo tiene
+     */
+    private int readCached(HttpDiskCache.Entry cached, ProductStreamParser.Listener listener,
+                           String currentVersion, boolean delivering,
+                           ApiMetrics.CacheResult result) throws IOException {
+        if (cached.getVersion().equals(currentVersion)) {
+            client.getMetrics().recordCache(result == ApiMetrics.CacheResult.STALE ? result : ApiMetrics.CacheResult.HIT);
+            return NOT_MODIFIED;
+        }
+        client.getMetrics().recordCache(result);
+        CatalogSnapshot snapshot = openSnapshot();
+        if (snapshot != null && cached.getVersion().equals(snapshot.getVersion())) {
+            int count = snapshot.readAll(listener);
+            snapshotVersion = snapshot.getVersion();
+            if (delivering) {
+                deliveredVersion = cached.getVersion();
+            }
+            return count;
+        }
+        InputStream in = cached.openBody();
+        try {
+            int count = ProductStreamParser.parse(in, LIST_DESCRIPTION_LENGTH, listener);
+            if (delivering) {
+                deliveredVersion = cached.getVersion();
+            }
+            return count;
+        } finally {
+            ApiClient.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Sincronización en segundo plano (CatalogSyncService)
+     *
+     * GET condicional contra la versión guardada en el snapshot: si el
+     * catálogo no cambió el servidor responde 304 sin cuerpo y no se lee
+     * nada. Si cambió, se descarga una vez y quedan al día la caché HTTP y
+     * el snapshot, así la próxima vez que se abra la lista ya está en disco.
+     * No toca lo que tiene la UI: la próxima carga ve la versión nueva.
+     *
+     * @return true si se guardó un catálogo nuevo
+     */
+    public boolean syncCatalog() throws IOException {
+        CatalogSnapshot snapshot = openSnapshot();
+        String onDisk = snapshot != null ? snapshot.getVersion() : null;
+        final List<Product> products = new ArrayList<>();
+        int total = fetchCatalog(new ProductStreamParser.Listener() {
+            @Override
+            public void onProduct(Product product) {
+                products.add(product);
+            }
+        }, onDisk, false);
+        if (total == NOT_MODIFIED || cache == null) {
+            return false;
+        }
+        HttpDiskCache.Entry cached = cache.get(client.getBaseUrl() + PATH_PRODUCTS);
+        String version = cached != null ? cached.getVersion() : null;
+        if (snapshotFile == null || version == null || version.equals(onDisk)) {
+            return false;
+        }
+        return writeSnapshot(products, version);
+    }
+
+    /**
+     * GET /products
+     */
+    public List<Product> getProducts() throws IOException {
+        final List<Product> products = new ArrayList<>();
+        streamProducts(new ProductStreamParser.Listener() {
+            @Override
+            public void onProduct(Product product) {
+                products.add(product);
+            }
+        });
+        return products;
+    }
+
+    /**
+     * GET /products?page={n}&limit={m}
+     * Las páginas empiezan en 0 para quien llama; la API las numera desde 1
+     */
+    public List<Product> getProductsPage(int page, int pageSize) throws IOException {
+        final List<Product> products = new ArrayList<>(pageSize);
+        String path = PATH_PRODUCTS + "?page=" + (page + 1) + "&limit=" + pageSize;
+        client.execute("GET", path, null, new ApiClient.ResponseHandler<Integer>() {
+            @Override
+            public Integer handle(int code, InputStream body, HttpURLConnection conn) throws IOException {
+                if (code != HttpURLConnection.HTTP_OK) {
+                    throw new ApiException(code, "Error al obtener productos");
+                }
+                return ProductStreamParser.parse(body, LIST_DESCRIPTION_LENGTH, new ProductStreamParser.Listener() {
+                    @Override
+                    public void onProduct(Product product) {
+                        products.add(product);
+                    }
+                });
+            }
+        });
+        return products;
+    }
+
+    /**
+     * Crea un paginador que lee del API con los hilos de este repositorio
+     * Al cancelar el scope se descartan las páginas pendientes y sus respuestas.
+     */
+    public ProductPager createPager(TaskScope scope, int pageSize, int prefetchDistance, int maxPages) {
+        return new ProductPager(new ProductPager.PageSource() {
+            @Override
+            public List<Product> loadPage(int page, int size) throws IOException {
+                return getProductsPage(page, size);
+            }
+        }, client.getScheduler().executor(TaskScheduler.Priority.VISIBLE, scope),
+                TaskScope.guard(scope, callbackExecutor), pageSize, prefetchDistance, maxPages);
+    }
+
+    /**
+     * GET /products/{id}
+     * El producto completo (con toda la descripción), sin pasar por la caché
+     */
+    public Product getProduct(String id) throws IOException, JSONException {
+        ApiClient.Response response = client.execute("GET", PATH_PRODUCTS + "/" + id, null);
+        if (response.getCode() != HttpURLConnection.HTTP_OK) {
+            throw new ApiException(response.getCode(), "Error al obtener producto");
+        }
+        JSONObject json = new JSONObject(response.getBody());
+        // Algunas respuestas envuelven el producto en "data"
+        if (json.optJSONObject("data") != null) {
+            json = json.getJSONObject("data");
+        }
+        return new Product(json);
+    }
+
+    /**
+     * El producto completo para una fila resumida
+     *
+     * Sale de los detalles en memoria si ya se pidió; si no, de GET
+     * /products/{id}, y si la API no responde, del catálogo JSON en disco.
+     * Conserva los campos de la fila (lo que el usuario ve) y solo completa
+     * la descripción.
+     */
+    public Product getProductDetail(Product product) throws IOException, JSONException {
+        if (!product.isSummary()) {
+            return product;
+        }
+        String id = product.getId();
+        Product detail;
+        synchronized (details) {
+            detail = details.get(id);
+        }
+        if (detail == null) {
+            try {
+                detail = getProduct(id);
+            } catch (IOException e) {
+                detail = ApiClient.isRetryable(e) ? findCached(id) : null;
+                if (detail == null) {
+                    throw e;
+                }
+            }
+            synchronized (details) {
+                details.put(id, detail);
+            }
+        }
+        Product full = new Product(product);
+        full.setDescription(detail.getDescription());
+        return full;
+    }
+
+    /**
+     * POST /products
+     * Devuelve el producto tal como lo guardó el servidor (con su ID)
+     */
+    public Product createProduct(Product product) throws IOException, JSONException {
+        ApiClient.Response response = client.execute("POST", PATH_PRODUCTS, product.toJSON().toString());
+        if (!response.isSuccessful()) {
+            throw new ApiException(response.getCode(), "Error al crear producto");
+        }
+        invalidateCatalog();
+        return parseProduct(response.getBody(), product);
+    }
+
+    /**
+     * PUT /products/{id}
+     */
+    public Product updateProduct(Product product) throws IOException, JSONException {
+        ApiClient.Response response = client.execute("PUT",
+                PATH_PRODUCTS + "/" + product.getId(), product.toJSON().toString());
+        if (response.getCode() != HttpURLConnection.HTTP_OK) {
+            throw new ApiException(response.getCode(), "Error al actualizar producto");
+        }
+        invalidateCatalog();
+        Product saved = parseProduct(response.getBody(), product);
+        rememberDetail(saved);
+        return saved;
+    }
+
+    /**
+     * DELETE /products/{id}
+     */
+    public void deleteProduct(String id) throws IOException {
+        ApiClient.Response response = client.execute("DELETE", PATH_PRODUCTS + "/" + id, null);
+        if (response.getCode() != HttpURLConnection.HTTP_OK &&
+                response.getCode() != HttpURLConnection.HTTP_NO_CONTENT) {
+            throw new ApiException(response.getCode(), "Error al eliminar producto");
+        }
+        invalidateCatalog();
+        synchronized (details) {
+            details.remove(id);
+        }
+    }
+
+    // ========== OPERACIONES ASÍNCRONAS ==========
+
+    /**
+     * Carga el catálogo en segundo plano entregando lotes a la UI
+     * mientras se descarga; al terminar informa el total
+     *
+     * Si ya hay una descarga en curso de la misma versión, el callback se suma
+     * a ella (una sola petición y un solo parseo). Si la descarga en curso
+     * quedó vieja por un cambio confirmado, se abandona y sus callbacks
+     * reciben la nueva.
+     *
+     * @param hasCurrent true si la UI ya muestra el último catálogo cargado;
+     *                   si no cambió en el servidor se llama a onNotModified()
+     */
+    public void loadProducts(boolean hasCurrent, BatchCallback callback) {
+        loadProducts(null, hasCurrent, callback);
+    }
+
+    /**
+     * Igual que el anterior, atado a una pantalla: al cancelar el scope el
+     * callback deja de recibir resultados y, si nadie más espera la descarga,
+     * se abandona (deja de parsear y no ocupa más un hilo)
+     */
+    public void loadProducts(TaskScope scope, boolean hasCurrent, BatchCallback callback) {
+        if (scope != null) {
+            ScopedCallback scoped = new ScopedCallback(scope, callback);
+            if (!scope.add(scoped)) {
+                return;
+            }
+            callback = scoped;
+        }
+
+        final CatalogLoad load;
+        synchronized (this) {
+            CatalogLoad current = inFlight;
+            if (current != null && current.generation == catalogGeneration
+                    && (hasCurrent || !current.hasCurrent)) {
+                current.join(callback);
+                return;
+            }
+
+            load = new CatalogLoad(hasCurrent && (current == null || current.hasCurrent), catalogGeneration);
+            if (current != null) {
+                current.superseded = true;
+                load.callbacks.addAll(current.callbacks);
+            }
+            load.callbacks.add(callback);
+            inFlight = load;
+        }
+
+        client.getScheduler().submit(TaskScheduler.Priority.VISIBLE, null, new Runnable() {
+            @Override
+            public void run() {
+                if (load.superseded) {
+                    // Abandonada mientras esperaba un hilo
+                    return;
+                }
+                try {
+                    int total = fetchProducts(load, load.hasCurrent);
+                    load.flush();
+                    List<Product> catalog = load.finish(total, null);
+                    if (catalog != null) {
+                        saveSnapshot(catalog);
+                    }
+                } catch (Exception e) {
+                    if (!load.superseded) {
+                        e.printStackTrace();
+                    }
+                    load.finish(null, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Vuelve a entregar el catálogo completo aunque no haya cambiado
+     *
+     * Para deshacer un cambio local que el servidor rechazó: como el
+     * servidor no cambió, un GET condicional responde 304 y loadProducts(true)
+     * llamaría a onNotModified() sin entregar nada. Acá el 304 se lee desde
+     * disco y llega como lotes, igual que un 200.
+     */
+    public void reloadProducts(TaskScope scope, BatchCallback callback) {
+        loadProducts(scope, false, callback);
+    }
+
+    /**
+     * Producto completo para el diálogo de edición (prioridad USER)
+     * Si el scope se cancela antes de terminar, el callback no recibe nada.
+     */
+    public void loadProductDetail(TaskScope scope, final Product product, Callback<Product> callback) {
+        submit(TaskScheduler.Priority.USER, scope, new Callable<Product>() {
+            @Override
+            public Product call() throws Exception {
+                return getProductDetail(product);
+            }
+        }, callback);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Último catálogo completo que entregó loadProducts(), o null si no hay
+     * o si después se confirmó un cambio. Permite mostrar filas al instante
+     * (por ejemplo lo que se precargó durante el splash) mientras se revalida.
+     */
+    public synchronized List<Product> getLastCatalog() {
+        return lastCatalog;
+    }
+
+    /**
+     * Abre la copia binaria del último catálogo, o null si no hay una válida
+     * Mapea el archivo y comprueba su CRC; cada producto se decodifica al pedirlo.
+     */
+    public CatalogSnapshot openSnapshot() {
+        if (snapshotFile == null) {
+            return null;
+        }
+        try {
+            return CatalogSnapshot.open(snapshotFile);
+        } catch (IOException e) {
+            // Dañado: se borra para no volver a fallar en cada inicio; la red lo reemplaza
+            e.printStackTrace();
+            synchronized (snapshotLock) {
+                snapshotFile.delete();
+                snapshotVersion = null;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Guarda el catálogo como snapshot si cambió desde la última vez
+     */
+    private void saveSnapshot(List<Product> catalog) {
+        String version = deliveredVersion;
+        if (snapshotFile == null || (version != null && version.equals(snapshotVersion))) {
+            return;
+        }
+        try {
+            writeSnapshot(catalog, version);
+        } catch (IOException e) {
+            // Sin snapshot el próximo inicio espera a la red, nada más
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Busca el producto completo en el catálogo JSON de la caché en disco
+     * Recorre el catálogo entero: solo se usa si la API no responde.
+     */
+    private Product findCached(final String id) throws IOException {
+        HttpDiskCache.Entry cached = cache != null ? cache.get(client.getBaseUrl() + PATH_PRODUCTS) : null;
+        if (cached == null) {
+            return null;
+        }
+        final Product[] found = new Product[1];
+        InputStream in = cached.openBody();
+        try {
+            ProductStreamParser.parse(in, new ProductStreamParser.Listener() {
+                @Override
+                public void onProduct(Product product) {
+                    if (id.equals(product.getId())) {
+                        found[0] = product;
+                    }
+                }
+            });
+        } finally {
+            ApiClient.closeQuietly(in);
+        }
+        return found[0];
+    }
+
+    /**
+     * Guarda la versión completa que confirmó el servidor
+     */
+    private void rememberDetail(Product product) {
+        String id = product.getId();
+        if (id == null || id.isEmpty() || product.isSummary()) {
+            return;
+        }
+        synchronized (details) {
+            details.put(id, new Product(product));
+        }
+    }
+
+    private void clearDetails() {
+        synchronized (details) {
+            details.clear();
+        }
+    }
+
+    /**
+     * Escribe el snapshot salvo que otro hilo ya haya guardado esa versión
+     *
+     * @return true si se escribió
+     */
+    private boolean writeSnapshot(List<Product> catalog, String version) throws IOException {
+        synchronized (snapshotLock) {
+            if (version != null && version.equals(snapshotVersion)) {
+                return false;
+            }
+            CatalogSnapshot.write(snapshotFile, catalog, version);
+            snapshotVersion = version;
+            return true;
+        }
+    }
+
+    private synchronized void invalidateCatalog() {
+        catalogGeneration++;
+        lastCatalog = null;
+    }
+
+    /**
+     * Quita un callback cancelado de la descarga en curso; si no queda nadie
+     * esperándola, se abandona
+     */
+    private synchronized void leave(BatchCallback callback) {
+        CatalogLoad load = inFlight;
+        if (load != null && load.callbacks.remove(callback) && load.callbacks.isEmpty()) {
+            load.superseded = true;
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Callback de una pantalla: no entrega nada después de cancelar su scope
+     * Los métodos corren en el hilo principal, igual que TaskScope.cancel().
+     */
+    private class ScopedCallback implements BatchCallback, TaskScope.Cancellable {
+        final TaskScope scope;
+        private final BatchCallback callback;
+
+        ScopedCallback(TaskScope scope, BatchCallback callback) {
+            this.scope = scope;
+            this.callback = callback;
+        }
+
+        @Override
+        public void cancel() {
+            leave(this);
+        }
+
+        @Override
+        public void onBatch(List<Product> batch, boolean first) {
+            if (!scope.isCancelled()) {
+                callback.onBatch(batch, first);
+            }
+        }
+
+        @Override
+        public void onNotModified() {
+            if (!scope.isCancelled()) {
+                callback.onNotModified();
+            }
+        }
+
+        @Override
+        public void onSuccess(Integer total) {
+            if (!scope.isCancelled()) {
+                callback.onSuccess(total);
+            }
+        }
+
+        @Override
+        public void onError(Exception error) {
+            if (!scope.isCancelled()) {
+                callback.onError(error);
+            }
+        }
+    }
+
+    /**
+     * Una descarga del catálogo compartida por todos los callbacks que la esperan
+     *
+     * Agrupa los productos decodificados en lotes para la UI y guarda los ya
+     * entregados, para repetirlos a quien se sume con la descarga empezada.
+     * Las listas de callbacks y lotes se protegen con el lock del repositorio.
+     */
+    private class CatalogLoad implements ProductStreamParser.Listener {
+        final boolean hasCurrent;
+        final int generation;
+        final List<BatchCallback> callbacks = new ArrayList<>();
+        private final List<List<Product>> delivered = new ArrayList<>();
+        private List<Product> batch = new ArrayList<>(BATCH_SIZE);
+        // Reemplazada por una descarga más nueva o abandonada (nadie la espera)
+        volatile boolean superseded;
+
+        CatalogLoad(boolean hasCurrent, int generation) {
+            this.hasCurrent = hasCurrent;
+            this.generation = generation;
+        }
+
+        @Override
+        public void onProduct(Product product) throws IOException {
+            if (superseded) {
+                // Corta el parseo; la caché descarta la copia a medias
+                throw new ApiClient.CancelledException("Descarga reemplazada o abandonada");
+            }
+            batch.add(product);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Product> ready = batch;
+            batch = new ArrayList<>(BATCH_SIZE);
+            synchronized (ProductRepository.this) {
+                if (superseded) {
+                    return;
+                }
+                boolean first = delivered.isEmpty();
+                delivered.add(ready);
+                for (BatchCallback callback : callbacks) {
+                    postBatch(callback, ready, first);
+                }
+            }
+        }
+
+        /**
+         * Suma un callback; se llama con el lock del repositorio
+         */
+        void join(BatchCallback callback) {
+            callbacks.add(callback);
+            for (int i = 0; i < delivered.size(); i++) {
+                postBatch(callback, delivered.get(i), i == 0);
+            }
+        }
+
+        /**
+         * Entrega el resultado; devuelve el catálogo completo si quedó vigente
+         */
+        List<Product> finish(final Integer total, final Exception error) {
+            final List<BatchCallback> waiting;
+            List<Product> result = null;
+            synchronized (ProductRepository.this) {
+                if (superseded) {
+                    return null;
+                }
+                if (inFlight == this) {
+                    inFlight = null;
+                }
+                if (error == null && total != NOT_MODIFIED && generation == catalogGeneration) {
+                    List<Product> catalog = new ArrayList<>(total);
+                    for (List<Product> ready : delivered) {
+                        catalog.addAll(ready);
+                    }
+                    lastCatalog = Collections.unmodifiableList(catalog);
+                    result = lastCatalog;
+                }
+                waiting = new ArrayList<>(callbacks);
+            }
+            for (BatchCallback callback : waiting) {
+                if (callback instanceof ScopedCallback) {
+                    // Terminó: el scope ya no necesita cancelarlo
+                    ((ScopedCallback) callback).scope.remove((ScopedCallback) callback);
+                }
+            }
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (BatchCallback callback : waiting) {
+                        if (error != null) {
+                            callback.onError(error);
+                        } else if (total == NOT_MODIFIED) {
+                            callback.onNotModified();
+                        } else {
+                            callback.onSuccess(total);
+                        }
+                    }
+                }
+            });
+            return result;
+        }
+
+        private void postBatch(final BatchCallback callback, final List<Product> ready, final boolean first) {
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onBatch(ready, first);
+                }
+            });
+        }
+    }
+
+    /**
+     * Corre la tarea en los hilos del cliente y entrega el resultado
+     * Al cancelar el scope la tarea sale de la cola y su resultado se descarta.
+     */
+    private <T> void submit(TaskScheduler.Priority priority, TaskScope scope, final Callable<T> task,
+                            final Callback<T> callback) {
+        final Executor delivery = TaskScope.guard(scope, callbackExecutor);
+        client.getScheduler().submit(priority, scope, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final T result = task.call();
+                    delivery.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onSuccess(result);
+                        }
+                    });
+                } catch (final Exception e) {
+                    e.printStackTrace();
+                    delivery.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onError(e);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Usa la respuesta del servidor si trae un producto; si no, el enviado
+     */
+    private static Product parseProduct(String body, Product fallback) throws JSONException {
+        if (body == null || body.trim().isEmpty() || !body.trim().startsWith("{")) {
+            return fallback;
+        }
+        JSONObject json = new JSONObject(body);
+        // Algunas respuestas envuelven el producto en "data"
+        if (json.optJSONObject("data") != null) {
+            json = json.getJSONObject("data");
+        }
+        Product saved = new Product(json);
+        if (saved.getTitle().isEmpty()) {
+            // Respuesta parcial (solo el ID): conservar los datos enviados
+            if (!saved.getId().isEmpty()) {
+                fallback.setId(saved.getId());
+            }
+            return fallback;
+        }
+        if (saved.getId().isEmpty()) {
+            saved.setId(fallback.getId());
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.ep_melixa_api021225;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Índice de búsqueda en memoria sobre el catálogo
+ *
+ * - Índice invertido de términos (título y descripción) a BitSet de documentos
+ * - Búsqueda por prefijo sobre los términos ordenados
+ * - Facetas por categoría y disponibilidad como BitSet
+ * - Filtros por rango de precio y calificación sobre arreglos primitivos
+ *
+ * Se actualiza de forma incremental con cada alta, cambio o baja,
+ * sin volver a recorrer la lista completa.
+ */
+public class ProductSearchIndex {
+
+    private final TreeMap<String, BitSet> terms = new TreeMap<>();
+    private final Map<String, BitSet> categories = new HashMap<>();
+    private final BitSet inStock = new BitSet();
+    private final BitSet live = new BitSet();
+
+    // Documentos: número interno -> producto, y ID -> número
+    private final ArrayList<Product> docs = new ArrayList<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final ArrayList<Integer> freeDocs = new ArrayList<>();
+    private double[] prices = new double[64];
+    private double[] ratings = new double[64];
+
+    /**
+     * Criterios de búsqueda; los que quedan en null no filtran
+     */
+    public static class Query {
+        private String text;
+        private String category;
+        private Boolean inStock;
+        private double minPrice = Double.NEGATIVE_INFINITY;
+        private double maxPrice = Double.POSITIVE_INFINITY;
+        private double minRating = Double.NEGATIVE_INFINITY;
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+
+        public void setInStock(Boolean inStock) {
+            this.inStock = inStock;
+        }
+
+        public void setPriceRange(double minPrice, double maxPrice) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+        }
+
+        public void setMinRating(double minRating) {
+            this.minRating = minRating;
+        }
+
+        /**
+         * true si ningún criterio está activo
+         */
+        public boolean isEmpty() {
+            return (text == null || text.trim().isEmpty()) && category == null && inStock == null
+                    && minPrice == Double.NEGATIVE_INFINITY && maxPrice == Double.POSITIVE_INFINITY
+                    && minRating == Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    // ========== ACTUALIZACIÓN ==========
+
+    /**
+     * Reconstruye el índice desde cero
+     */
+    public void rebuild(List<Product> products) {
+        terms.clear();
+        categories.clear();
+        inStock.clear();
+        live.clear();
+        docs.clear();
+        docIds.clear();
+        freeDocs.clear();
+        for (Product product : products) {
+            put(product);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto (por ID)
+     */
+    public void put(Product product) {
+        String id = product.getId();
+        Integer existing = id != null ? docIds.get(id) : null;
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unindex(doc);
+        } else if (!freeDocs.isEmpty()) {
+            doc = freeDocs.remove(freeDocs.size() - 1);
+        } else {
+            doc = docs.size();
+            docs.add(null);
+        }
+        if (id != null && !id.isEmpty()) {
+            docIds.put(id, doc);
+        }
+        index(doc, product);
+    }
+
+    public void remove(String id) {
+        Integer doc = id != null ? docIds.remove(id) : null;
+        if (doc == null) {
+            return;
+        }
+        unindex(doc);
+        docs.set(doc, null);
+        freeDocs.add(doc);
+    }
+
+    public int size() {
+        return live.cardinality();
+    }
+
+    // ========== BÚSQUEDA ==========
+
+    /**
+     * Productos que cumplen todos los criterios
+     * Cada palabra del texto se busca como prefijo de algún término
+     */
+    public List<Product> search(Query query) {
+        BitSet result = (BitSet) live.clone();
+
+        if (query.text != null) {
+            for (String token : tokenize(query.text)) {
+                result.and(prefixMatches(token));
+                if (result.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+        }
+
+        if (query.category != null) {
+            BitSet category = categories.get(query.category);
+            if (category == null) {
+                return new ArrayList<>();
+            }
+            result.and(category);
+        }
+
+        if (query.inStock != null) {
+            if (query.inStock) {
+                result.and(inStock);
+            } else {
+                result.andNot(inStock);
+            }
+        }
+
+        boolean priceFilter = query.minPrice != Double.NEGATIVE_INFINITY || query.maxPrice != Double.POSITIVE_INFINITY;
+        boolean ratingFilter = query.minRating != Double.NEGATIVE_INFINITY;
+
+        List<Product> products = new ArrayList<>(result.cardinality());
+        for (int doc = result.nextSetBit(0); doc >= 0; doc = result.nextSetBit(doc + 1)) {
+            if (priceFilter && (prices[doc] < query.minPrice || prices[doc] > query.maxPrice)) {
+                continue;
+            }
+            if (ratingFilter && ratings[doc] < query.minRating) {
+                continue;
+            }
+            products.add(docs.get(doc));
+        }
+        return products;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void index(int doc, Product product) {
+        docs.set(doc, product);
+        live.set(doc);
+        ensureCapacity(doc + 1);
+        prices[doc] = product.getPrice();
+        ratings[doc] = product.getRating();
+
+        for (String token : tokensOf(product)) {
+            BitSet postings = terms.get(token);
+            if (postings == null) {
+                postings = new BitSet();
+                terms.put(token, postings);
+            }
+            postings.set(doc);
+        }
+
+        String category = product.getCategory();
+        if (category != null) {
+            BitSet facet = categories.get(category);
+            if (facet == null) {
+                facet = new BitSet();
+                categories.put(category, facet);
+            }
+            facet.set(doc);
+        }
+
+        inStock.set(doc, product.isInStock());
+    }
+
+    private void unindex(int doc) {
+        Product old = docs.get(doc);
+        if (old == null) {
+            return;
+        }
+        for (String token : tokensOf(old)) {
+            BitSet postings = terms.get(token);
+            if (postings != null) {
+                postings.clear(doc);
+                if (postings.isEmpty()) {
+                    terms.remove(token);
+                }
+            }
+        }
+        BitSet facet = old.getCategory() != null ? categories.get(old.getCategory()) : null;
+        if (facet != null) {
+            facet.clear(doc);
+        }
+        inStock.clear(doc);
+        live.clear(doc);
+    }
+
+    /**
+     * Unión de los documentos de todos los términos que empiezan con el prefijo
+     */
+    private BitSet prefixMatches(String prefix) {
+        BitSet matches = new BitSet();
+        SortedMap<String, BitSet> range = terms.subMap(prefix, prefix + Character.MAX_VALUE);
+        for (BitSet postings : range.values()) {
+            matches.or(postings);
+        }
+        return matches;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > prices.length) {
+            int newLength = Math.max(size, prices.length * 2);
+            prices = Arrays.copyOf(prices, newLength);
+            ratings = Arrays.copyOf(ratings, newLength);
+        }
+    }
+
+    private static List<String> tokensOf(Product product) {
+        List<String> tokens = tokenize(product.getTitle());
+        tokens.addAll(tokenize(product.getDescription()));
+        return tokens;
+    }
+
+    /**
+     * Minúsculas, sin acentos, separado por todo lo que no sea letra o dígito
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,531 @@
+package com.example.ep_melixa_api021225;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo en memoria indexado por ID
+ *
+ * Las respuestas de POST/PUT/DELETE se aplican aquí directamente en lugar
+ * de volver a descargar la lista completa. Cada cambio se notifica por
+ * posición para que la UI actualice solo las filas afectadas.
+ *
+ * Los datos se guardan por columnas: un arreglo primitivo por campo
+ * numérico y códigos enteros para categoría y disponibilidad (cada valor
+ * distinto se guarda una sola vez). Ordenar, filtrar por rango o buscar
+ * por ID recorre arreglos contiguos sin crear objetos. get() arma el
+ * Product de una fila la primera vez que se pide y devuelve ese mismo
+ * objeto hasta que la fila cambie: redibujar la lista después de editar un
+ * producto crea uno solo, y el diff del adapter reconoce por referencia las
+ * filas que no cambiaron. Los textos del objeto son los mismos de las
+ * columnas, no copias.
+ */
+public class ProductStore {
+
+    // Órdenes para sortRows() / snapshot(int)
+    public static final int ORDER_NONE = 0;
+    public static final int ORDER_PRICE_ASC = 1;
+    public static final int ORDER_PRICE_DESC = 2;
+    public static final int ORDER_RATING_DESC = 3;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Cambios en el catálogo, por posición
+     */
+    public interface ChangeListener {
+        void onItemRangeInserted(int position, int count);
+        void onItemChanged(int position);
+        void onItemRemoved(int position, Product removed);
+        void onDataSetChanged();
+    }
+
+    // Columnas (filas 0..size-1)
+    private int size;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    private String[] images = new String[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private float[] ratings = new float[INITIAL_CAPACITY];
+    private int[] ratingCounts = new int[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private int[] availabilities = new int[INITIAL_CAPACITY];
+    // true si la fila guarda la versión resumida (descripción recortada)
+    private boolean[] summaries = new boolean[INITIAL_CAPACITY];
+    // Product ya armado de cada fila (null hasta el primer get o después de un cambio)
+    private Product[] rows = new Product[INITIAL_CAPACITY];
+
+    // Diccionario de categorías y disponibilidades (código = posición)
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    // Índice ID -> fila con direccionamiento abierto; guarda fila + 1 (0 = libre)
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    // Buffer reutilizado para ordenar: clave en los 32 bits altos, fila en los bajos
+    private long[] sortKeys = new long[0];
+
+    private ChangeListener listener;
+
+    public void setChangeListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    // ========== CONSULTAS ==========
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Producto de la fila; el mismo objeto mientras la fila no cambie
+     * No se debe modificar: para editarlo, new Product(producto).
+     */
+    public Product get(int position) {
+        checkPosition(position);
+        Product cached = rows[position];
+        if (cached != null) {
+            return cached;
+        }
+        Product product = new Product(ids[position], titles[position], descriptions[position],
+                prices[position], value(categories[position]), images[position]);
+        product.setRating(ratings[position]);
+        product.setRatingCount(ratingCounts[position]);
+        product.setAvailability(value(availabilities[position]));
+        product.setSummary(summaries[position]);
+        rows[position] = product;
+        return product;
+    }
+
+    /**
+     * Busca un producto por ID, o null si no está
+     */
+    public Product findById(String id) {
+        int position = indexOf(id);
+        return position >= 0 ? get(position) : null;
+    }
+
+    /**
+     * Posición del producto con ese ID, o -1 si no está
+     */
+    public int indexOf(String id) {
+        if (id == null || id.isEmpty()) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = hash(id) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int row = table[slot] - 1;
+            if (id.equals(ids[row])) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    public String getId(int position) {
+        checkPosition(position);
+        return ids[position];
+    }
+
+    public double getPrice(int position) {
+        checkPosition(position);
+        return prices[position];
+    }
+
+    public float getRating(int position) {
+        checkPosition(position);
+        return ratings[position];
+    }
+
+    public int getRatingCount(int position) {
+        checkPosition(position);
+        return ratingCounts[position];
+    }
+
+    public String getCategory(int position) {
+        checkPosition(position);
+        return value(categories[position]);
+    }
+
+    public boolean isInStock(int position) {
+        checkPosition(position);
+        return Product.isInStock(value(availabilities[position]));
+    }
+
+    /**
+     * Copia de la lista actual (para guardar o diferenciar)
+     */
+    public List<Product> snapshot() {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(get(i));
+        }
+        return products;
+    }
+
+    /**
+     * Copia de la lista en el orden indicado (ORDER_*)
+     */
+    public List<Product> snapshot(int order) {
+        if (order == ORDER_NONE) {
+            return snapshot();
+        }
+        int[] rows = new int[size];
+        sortRows(order, rows);
+        List<Product> products = new ArrayList<>(size);
+        for (int row : rows) {
+            products.add(get(row));
+        }
+        return products;
+    }
+
+    // ========== ORDEN Y AGREGADOS ==========
+
+    /**
+     * Escribe en rows las filas ordenadas según order; empates por posición
+     * No crea objetos: ordena claves primitivas en un buffer reutilizado.
+     * La clave lleva el precio como float; las filas que empatan ahí se
+     * ordenan después por el precio exacto (double).
+     *
+     * @param rows arreglo de al menos size() elementos
+     */
+    public void sortRows(int order, int[] rows) {
+        if (rows.length < size) {
+            throw new IllegalArgumentException("Se necesitan " + size + " posiciones");
+        }
+        if (order == ORDER_NONE) {
+            for (int i = 0; i < size; i++) {
+                rows[i] = i;
+            }
+            return;
+        }
+        if (sortKeys.length < size) {
+            sortKeys = new long[Math.max(size, sortKeys.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            int key;
+            switch (order) {
+                case ORDER_PRICE_ASC:
+                    key = sortableBits((float) prices[i]);
+                    break;
+                case ORDER_PRICE_DESC:
+                    key = ~sortableBits((float) prices[i]);
+                    break;
+                case ORDER_RATING_DESC:
+                    key = ~sortableBits(ratings[i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Orden desconocido: " + order);
+            }
+            sortKeys[i] = ((long) key << 32) | i;
+        }
+        Arrays.sort(sortKeys, 0, size);
+        for (int i = 0; i < size; i++) {
+            rows[i] = (int) sortKeys[i];
+        }
+        if (order != ORDER_RATING_DESC) {
+            sortPriceTies(rows, order == ORDER_PRICE_DESC);
+        }
+    }
+
+    /**
+     * Ordena por el precio exacto cada grupo de filas con la misma clave float
+     * Desde unos 167.000 dos precios que difieren en centavos dan el mismo
+     * float. Los grupos ya están en su lugar y casi siempre son de una fila;
+     * la inserción es estable, así a igual precio sigue mandando la posición.
+     */
+    private void sortPriceTies(int[] rows, boolean descending) {
+        int start = 0;
+        while (start < size) {
+            float key = (float) prices[rows[start]];
+            int end = start + 1;
+            while (end < size && Float.compare((float) prices[rows[end]], key) == 0) {
+                end++;
+            }
+            for (int i = start + 1; i < end; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= start && comparePrices(rows[j], row, descending) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            start = end;
+        }
+    }
+
+    private int comparePrices(int a, int b, boolean descending) {
+        int result = Double.compare(prices[a], prices[b]);
+        return descending ? -result : result;
+    }
+
+    /**
+     * Escribe en rows las filas con precio entre min y max (inclusive)
+     *
+     * @return cantidad de filas escritas
+     */
+    public int selectByPrice(double min, double max, int[] rows) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (prices[i] >= min && prices[i] <= max) {
+                rows[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Calificación promedio ponderada por cantidad de valoraciones
+     */
+    public double getAverageRating() {
+        double sum = 0;
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            sum += (double) ratings[i] * ratingCounts[i];
+            count += ratingCounts[i];
+        }
+        return count > 0 ? sum / count : 0;
+    }
+
+    // ========== MODIFICACIONES ==========
+
+    /**
+     * Reemplaza todo el catálogo
+     */
+    public void replaceAll(List<Product> newProducts) {
+        clearRows();
+        ensureCapacity(newProducts.size());
+        for (Product product : newProducts) {
+            appendInternal(product);
+        }
+        if (listener != null) {
+            listener.onDataSetChanged();
+        }
+    }
+
+    /**
+     * Agrega un lote al final; los IDs ya presentes se actualizan en su lugar
+     */
+    public void addAll(List<Product> batch) {
+        int start = size;
+        ensureCapacity(size + batch.size());
+        for (Product product : batch) {
+            int existing = indexOf(product.getId());
+            if (existing >= 0) {
+                setRow(existing, product);
+                if (listener != null) {
+                    listener.onItemChanged(existing);
+                }
+            } else {
+                appendInternal(product);
+            }
+        }
+        int inserted = size - start;
+        if (inserted > 0 && listener != null) {
+            listener.onItemRangeInserted(start, inserted);
+        }
+    }
+
+    /**
+     * Inserta o reemplaza un producto según su ID
+     *
+     * @return la posición del producto
+     */
+    public int upsert(Product product) {
+        int existing = indexOf(product.getId());
+        if (existing >= 0) {
+            setRow(existing, product);
+            if (listener != null) {
+                listener.onItemChanged(existing);
+            }
+            return existing;
+        }
+
+        int position = appendInternal(product);
+        if (listener != null) {
+            listener.onItemRangeInserted(position, 1);
+        }
+        return position;
+    }
+
+    /**
+     * Elimina el producto con ese ID
+     *
+     * @return la posición que ocupaba, o -1 si no estaba
+     */
+    public int remove(String id) {
+        int position = indexOf(id);
+        if (position < 0) {
+            return -1;
+        }
+        Product removed = listener != null ? get(position) : null;
+
+        // Las filas posteriores se corren una hacia atrás
+        int moved = size - position - 1;
+        System.arraycopy(ids, position + 1, ids, position, moved);
+        System.arraycopy(titles, position + 1, titles, position, moved);
+        System.arraycopy(descriptions, position + 1, descriptions, position, moved);
+        System.arraycopy(images, position + 1, images, position, moved);
+        System.arraycopy(prices, position + 1, prices, position, moved);
+        System.arraycopy(ratings, position + 1, ratings, position, moved);
+        System.arraycopy(ratingCounts, position + 1, ratingCounts, position, moved);
+        System.arraycopy(categories, position + 1, categories, position, moved);
+        System.arraycopy(availabilities, position + 1, availabilities, position, moved);
+        System.arraycopy(summaries, position + 1, summaries, position, moved);
+        System.arraycopy(rows, position + 1, rows, position, moved);
+        size--;
+        ids[size] = null;
+        titles[size] = null;
+        descriptions[size] = null;
+        images[size] = null;
+        rows[size] = null;
+        rebuildIndex();
+
+        if (listener != null) {
+            listener.onItemRemoved(position, removed);
+        }
+        return position;
+    }
+
+    public void clear() {
+        clearRows();
+        if (listener != null) {
+            listener.onDataSetChanged();
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private int appendInternal(Product product) {
+        ensureCapacity(size + 1);
+        int position = size++;
+        setRow(position, product);
+        String id = product.getId();
+        if (id != null && !id.isEmpty()) {
+            if ((size + 1) * 2 > table.length) {
+                rebuildIndex();
+            } else {
+                indexPut(id, position);
+            }
+        }
+        return position;
+    }
+
+    private void setRow(int row, Product product) {
+        ids[row] = product.getId();
+        titles[row] = product.getTitle();
+        descriptions[row] = product.getDescription();
+        images[row] = product.getImage();
+        prices[row] = product.getPrice();
+        ratings[row] = (float) product.getRating();
+        ratingCounts[row] = product.getRatingCount();
+        categories[row] = code(product.getCategory());
+        availabilities[row] = code(product.getAvailability());
+        summaries[row] = product.isSummary();
+        rows[row] = null;
+    }
+
+    private void clearRows() {
+        Arrays.fill(ids, 0, size, null);
+        Arrays.fill(titles, 0, size, null);
+        Arrays.fill(descriptions, 0, size, null);
+        Arrays.fill(images, 0, size, null);
+        Arrays.fill(rows, 0, size, null);
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        titles = Arrays.copyOf(titles, newCapacity);
+        descriptions = Arrays.copyOf(descriptions, newCapacity);
+        images = Arrays.copyOf(images, newCapacity);
+        prices = Arrays.copyOf(prices, newCapacity);
+        ratings = Arrays.copyOf(ratings, newCapacity);
+        ratingCounts = Arrays.copyOf(ratingCounts, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        availabilities = Arrays.copyOf(availabilities, newCapacity);
+        summaries = Arrays.copyOf(summaries, newCapacity);
+        rows = Arrays.copyOf(rows, newCapacity);
+    }
+
+    /**
+     * Rehace el índice de IDs (después de borrar o al superar la mitad de la tabla)
+     */
+    private void rebuildIndex() {
+        int capacity = table.length;
+        while (capacity < (size + 1) * 2) {
+            capacity *= 2;
+        }
+        if (capacity != table.length) {
+            table = new int[capacity];
+        } else {
+            Arrays.fill(table, 0);
+        }
+        for (int row = 0; row < size; row++) {
+            if (ids[row] != null && !ids[row].isEmpty()) {
+                indexPut(ids[row], row);
+            }
+        }
+    }
+
+    private void indexPut(String id, int row) {
+        int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        while (table[slot] != 0 && !id.equals(ids[table[slot] - 1])) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row + 1;
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int code(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            // La instancia compartida: get() no retiene copias propias
+            value = StringPool.getDefault().intern(value);
+            values.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    private String value(int code) {
+        return code >= 0 ? values.get(code) : null;
+    }
+
+    /**
+     * Bits de un float que, comparados como int con signo, respetan el orden del float
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Posición " + position + ", tamaño " + size);
+        }
+    }
+}
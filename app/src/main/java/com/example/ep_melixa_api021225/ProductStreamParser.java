@@ -0,0 +1,51 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parser por streaming del catálogo de productos
+ *
+ * Decodifica el arreglo JSON directamente desde el InputStream de la conexión
+ * y entrega cada Product apenas se completa, sin guardar el texto completo
+ * ni un JSONArray intermedio. La memoria usada no crece con el catálogo.
+ */
+public class ProductStreamParser {
+
+    /**
+     * Recibe cada producto a medida que se decodifica
+     */
+    public interface Listener {
+        void onProduct(Product product) throws IOException;
+    }
+
+    private ProductStreamParser() {
+    }
+
+    /**
+     * Lee un arreglo de productos y devuelve cuántos se decodificaron
+     */
+    public static int parse(InputStream in, Listener listener) throws IOException {
+        return parse(in, Product.NO_LIMIT, listener);
+    }
+
+    /**
+     * Igual que parse(in, listener) pero con productos resumidos para la lista:
+     * de cada descripción se guardan como mucho descriptionLimit caracteres
+     */
+    public static int parse(InputStream in, int descriptionLimit, Listener listener) throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int count = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            listener.onProduct(new Product(reader, descriptionLimit));
+            count++;
+        }
+        reader.endArray();
+
+        return count;
+    }
+}
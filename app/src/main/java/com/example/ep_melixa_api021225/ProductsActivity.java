@@ -1,46 +1,61 @@
-package android.example.ep_melixa_api021225;
+package com.example.ep_melixa_api021225;
 
 import android.app.AlertDialog;
 import android.app.ProgressDialog;
 import android.content.DialogInterface;
-import android.os.AsyncTask;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.SubMenu;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.EditText;
-import android.widget.ListView;
 import android.widget.Spinner;
 import android.widget.Toast;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.ArrayList;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 
 public class ProductsActivity extends AppCompatActivity implements ProductAdapter.ProductActionListener {
 
-    // URL Base de la API FakeStores
-    private static final String API_BASE_URL = "https://fakestores.vercel.app/api";
-    private static final String API_PRODUCTS = API_BASE_URL + "/products";
+    // Extra para abrir el catálogo en modo paginado (catálogos muy grandes)
+    public static final String EXTRA_PAGED = "paged";
+
+    // Estado guardado: diálogo de producto abierto (lo escrito, como ProductParcel)
+    private static final String KEY_DIALOG_DRAFT = "dialog_draft";
+    private static final String KEY_DIALOG_EDITING = "dialog_editing";
+
+    // Modo paginado: tamaño de página, anticipación y máximo de páginas en memoria
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 10;
+    private static final int MAX_PAGES = 7;
 
     // Categorías disponibles
     private static final String[] CATEGORIES = {
             "electronics", "jewelery", "men's clothing", "women's clothing"
     };
 
-    private ListView listView;
+    private RecyclerView recyclerView;
     private FloatingActionButton fab;
     private ProductAdapter adapter;
-    private ArrayList<Product> productList;
     private ProgressDialog progressDialog;
+    // Catálogo, búsqueda y cargas: sobreviven a rotaciones y otros cambios de configuración
+    private ProductsViewModel viewModel;
+    private ProductStore productStore;
+    private ProductPager pager;     // solo en modo paginado
+    // Pedidos de esta pantalla (detalle para editar); se cancelan al destruirla
+    private final TaskScope scope = new TaskScope();
+    // Diálogo de alta/edición abierto y el producto que edita (editing[0], null si es alta)
+    private AlertDialog productDialog;
+    private Product[] dialogEditing;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -52,12 +67,57 @@ public class ProductsActivity extends AppCompatActivity implements ProductAdapte
             getSupportActionBar().setDisplayHomeAsUpEnabled(true);
         }
 
-        listView = findViewById(R.id.list_products);
+        recyclerView = findViewById(R.id.list_products);
         fab = findViewById(R.id.fab_add_product);
 
-        productList = new ArrayList<>();
-        adapter = new ProductAdapter(this, productList, this);
-        listView.setAdapter(adapter);
+        viewModel = new ViewModelProvider(this).get(ProductsViewModel.class);
+        productStore = viewModel.getStore();
+
+        adapter = new ProductAdapter(this, productStore, this);
+        adapter.setSortOrder(viewModel.getSortOrder());
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(adapter);
+        viewModel.setListener(new ProductsViewModel.Listener() {
+            @Override
+            public void onProductsChanged() {
+                // Las primeras filas se muestran antes de terminar la descarga
+                if (!viewModel.isWaitingForCatalog()) {
+                    progressDialog.dismiss();
+                }
+                showProducts();
+            }
+
+            @Override
+            public void onLoadFinished(int total) {
+                progressDialog.dismiss();
+                if (total != ProductsViewModel.NOT_MODIFIED) {
+                    Toast.makeText(ProductsActivity.this,
+                            total + " productos cargados", Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onLoadFailed(Exception error) {
+                progressDialog.dismiss();
+                Toast.makeText(ProductsActivity.this,
+                        error instanceof JsonStreamReader.SyntaxException
+                                ? "Error al procesar datos" : "Error de conexión",
+                        Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onMutationFailed(Product product) {
+                Toast.makeText(ProductsActivity.this,
+                        "No se pudo guardar \"" + product.getTitle() + "\"",
+                        Toast.LENGTH_LONG).show();
+                showProgressIfWaiting();
+            }
+
+            @Override
+            public void onPendingChanged(int pending) {
+                showPendingCount(pending);
+            }
+        });
 
         progressDialog = new ProgressDialog(this);
         progressDialog.setMessage("Cargando...");
@@ -70,14 +130,243 @@ public class ProductsActivity extends AppCompatActivity implements ProductAdapte
             }
         });
 
-        loadProducts();
+        showPendingCount(viewModel.getPendingCount());
+
+        // Solo la primera vez carga; al recrear la pantalla se dibuja lo que ya hay
+        viewModel.start(getIntent().getBooleanExtra(EXTRA_PAGED, false),
+                PAGE_SIZE, PREFETCH_DISTANCE, MAX_PAGES);
+        pager = viewModel.getPager();
+        if (pager != null) {
+            showPages();
+        } else {
+            showProducts();
+            showProgressIfWaiting();
+        }
+
+        // El diálogo que estaba abierto antes de recrear la pantalla, con lo escrito
+        if (savedInstanceState != null) {
+            ProductParcel draft = savedInstanceState.getParcelable(KEY_DIALOG_DRAFT);
+            if (draft != null && draft.getProduct() != null) {
+                Product product = draft.getProduct();
+                showProductDialog(savedInstanceState.getBoolean(KEY_DIALOG_EDITING) ? product : null, product);
+            }
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (productDialog != null && productDialog.isShowing()) {
+            outState.putParcelable(KEY_DIALOG_DRAFT, new ProductParcel(readDialogDraft()));
+            outState.putBoolean(KEY_DIALOG_EDITING, dialogEditing[0] != null);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        scope.cancel();
+        viewModel.setListener(null);
+        if (pager != null) {
+            pager.setListener(null);
+        }
+        // Si sigue cargando, la pantalla recreada vuelve a mostrar el diálogo
+        progressDialog.dismiss();
+        if (productDialog != null) {
+            productDialog.dismiss();
+        }
+        super.onDestroy();
+    }
+
+    /**
+     * Cambios guardados localmente que aún no llegaron al servidor
+     */
+    private void showPendingCount(int pending) {
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setSubtitle(pending > 0 ? pending + " cambios sin sincronizar" : null);
+        }
+    }
+
+    /**
+     * Modo paginado: solo se mantiene en memoria una ventana de páginas
+     */
+    private void showPages() {
+        pager.setListener(new ProductPager.Listener() {
+            @Override
+            public void onRangeChanged(int start, int count) {
+                adapter.notifyItemRangeChanged(start, count);
+            }
+
+            @Override
+            public void onCountChanged(int oldCount, int newCount) {
+                if (newCount > oldCount) {
+                    adapter.notifyItemRangeInserted(oldCount, newCount - oldCount);
+                } else {
+                    adapter.notifyItemRangeRemoved(newCount, oldCount - newCount);
+                }
+            }
+
+            @Override
+            public void onError(Exception error) {
+                Toast.makeText(ProductsActivity.this,
+                        "Error de conexión", Toast.LENGTH_SHORT).show();
+            }
+        });
+        adapter.setPager(pager);
+    }
+
+    // ========== BÚSQUEDA ==========
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        if (pager != null) {
+            // En modo paginado no está todo el catálogo en memoria
+            return super.onCreateOptionsMenu(menu);
+        }
+        getMenuInflater().inflate(R.menu.menu_products, menu);
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint("Buscar productos");
+        // Búsqueda de antes de recrear la pantalla
+        String text = viewModel.getQueryText();
+        if (text != null && !text.isEmpty()) {
+            searchItem.expandActionView();
+            searchView.setQuery(text, false);
+        }
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String text) {
+                return false;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String text) {
+                viewModel.setQueryText(text);
+                showProducts();
+                return true;
+            }
+        });
+
+        // Facetas por categoría: "Todas" y una opción por categoría
+        SubMenu categories = menu.findItem(R.id.action_category).getSubMenu();
+        categories.add(R.id.group_category, 0, Menu.NONE, "Todas");
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            categories.add(R.id.group_category, i + 1, Menu.NONE, CATEGORIES[i]);
+        }
+        categories.setGroupCheckable(R.id.group_category, true, true);
+
+        // Filtros y orden elegidos (sobreviven a la recreación de la pantalla)
+        int category = 0;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(viewModel.getCategory())) {
+                category = i + 1;
+            }
+        }
+        categories.findItem(category).setChecked(true);
+        menu.findItem(R.id.action_in_stock).setChecked(viewModel.isInStockOnly());
+        menu.findItem(sortItemFor(viewModel.getSortOrder())).setChecked(true);
+
+        // Métricas de red solo en compilaciones de depuración
+        menu.findItem(R.id.action_metrics).setVisible(
+                (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_in_stock) {
+            item.setChecked(!item.isChecked());
+            viewModel.setInStock(item.isChecked() ? Boolean.TRUE : null);
+            showProducts();
+            return true;
+        }
+        if (item.getGroupId() == R.id.group_sort) {
+            item.setChecked(true);
+            viewModel.setSortOrder(sortOrderFor(item.getItemId()));
+            adapter.setSortOrder(viewModel.getSortOrder());
+            return true;
+        }
+        if (item.getGroupId() == R.id.group_category) {
+            item.setChecked(true);
+            viewModel.setCategory(item.getItemId() > 0 ? CATEGORIES[item.getItemId() - 1] : null);
+            showProducts();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_metrics) {
+            showMetrics();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    // ========== MÉTRICAS ==========
+
+    private void showMetrics() {
+        new AlertDialog.Builder(this)
+                .setTitle("Métricas de la API")
+                .setMessage(ApiClient.getInstance().getMetrics().dump())
+                .setPositiveButton("Cerrar", null)
+                .show();
+    }
+
+    /**
+     * También disponibles con: adb shell dumpsys activity ProductsActivity
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.print(prefix);
+        writer.println("Métricas de la API:");
+        writer.print(ApiClient.getInstance().getMetrics().dump());
+    }
+
+    private static int sortOrderFor(int itemId) {
+        if (itemId == R.id.action_sort_price_asc) {
+            return ProductStore.ORDER_PRICE_ASC;
+        } else if (itemId == R.id.action_sort_price_desc) {
+            return ProductStore.ORDER_PRICE_DESC;
+        } else if (itemId == R.id.action_sort_rating) {
+            return ProductStore.ORDER_RATING_DESC;
+        }
+        return ProductStore.ORDER_NONE;
+    }
+
+    private static int sortItemFor(int sortOrder) {
+        switch (sortOrder) {
+            case ProductStore.ORDER_PRICE_ASC:
+                return R.id.action_sort_price_asc;
+            case ProductStore.ORDER_PRICE_DESC:
+                return R.id.action_sort_price_desc;
+            case ProductStore.ORDER_RATING_DESC:
+                return R.id.action_sort_rating;
+            default:
+                return R.id.action_sort_none;
+        }
+    }
+
+    /**
+     * Muestra el catálogo completo o el resultado de la búsqueda actual
+     */
+    private void showProducts() {
+        adapter.setSearchResults(viewModel.search());
+    }
+
+    private void showProgressIfWaiting() {
+        if (viewModel.isWaitingForCatalog()) {
+            progressDialog.setMessage("Cargando...");
+            progressDialog.show();
+        }
     }
 
-    private void loadProducts() {
-        new GetProductsTask().execute();
+    private void showProductDialog(Product product) {
+        showProductDialog(product, product);
     }
 
-    private void showProductDialog(final Product product) {
+    /**
+     * @param product producto a editar, o null para un alta
+     * @param draft   valores con los que arrancan los campos (lo escrito antes de recrear la pantalla)
+     */
+    private void showProductDialog(final Product product, Product draft) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_product, null);
 
@@ -93,21 +382,23 @@ public class ProductsActivity extends AppCompatActivity implements ProductAdapte
         categoryAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerCategory.setAdapter(categoryAdapter);
 
-        if (product != null) {
-            builder.setTitle("Editar Producto");
-            etTitle.setText(product.getTitle());
-            etDescription.setText(product.getDescription());
-            etPrice.setText(String.valueOf(product.getPrice()));
+        // La fila trae la descripción recortada: se edita la versión completa
+        final Product[] editing = {product};
+        final boolean loadingDetail = product != null && product.isSummary();
+
+        builder.setTitle(product != null ? "Editar Producto" : "Nuevo Producto");
+        if (draft != null) {
+            etTitle.setText(draft.getTitle());
+            etDescription.setText(draft.getDescription());
+            etPrice.setText(String.valueOf(draft.getPrice()));
 
             // Seleccionar categoría actual
             for (int i = 0; i < CATEGORIES.length; i++) {
-                if (CATEGORIES[i].equals(product.getCategory())) {
+                if (CATEGORIES[i].equals(draft.getCategory())) {
                     spinnerCategory.setSelection(i);
                     break;
                 }
             }
-        } else {
-            builder.setTitle("Nuevo Producto");
         }
 
         builder.setView(dialogView)
@@ -140,23 +431,79 @@ public class ProductsActivity extends AppCompatActivity implements ProductAdapte
                             return;
                         }
 
-                        if (product != null) {
-                            // Actualizar producto existente
-                            product.setTitle(title);
-                            product.setDescription(description);
-                            product.setPrice(price);
-                            product.setCategory(category);
-                            new UpdateProductTask().execute(product);
+                        if (editing[0] != null) {
+                            // Actualizar una copia: la lista cambia solo si el servidor confirma
+                            Product edited = new Product(editing[0]);
+                            edited.setTitle(title);
+                            edited.setDescription(description);
+                            edited.setPrice(price);
+                            edited.setCategory(category);
+                            updateProduct(edited);
                         } else {
                             // Crear nuevo producto
                             Product newProduct = new Product(title, description, price, category);
-                            new CreateProductTask().execute(newProduct);
+                            createProduct(newProduct);
                         }
                     }
                 })
-                .setNegativeButton("Cancelar", null)
-                .create()
-                .show();
+                .setNegativeButton("Cancelar", null);
+        final AlertDialog dialog = builder.create();
+        dialog.show();
+        productDialog = dialog;
+        dialogEditing = editing;
+
+        if (loadingDetail) {
+            // Sin guardar hasta tener la descripción completa: si no, el PUT la recortaría
+            etDescription.setEnabled(false);
+            dialog.getButton(AlertDialog.BUTTON_POSITIVE).setEnabled(false);
+            viewModel.loadProductDetail(scope, product, new ProductRepository.Callback<Product>() {
+                @Override
+                public void onSuccess(Product full) {
+                    if (!dialog.isShowing()) {
+                        return;
+                    }
+                    editing[0] = full;
+                    etDescription.setText(full.getDescription());
+                    etDescription.setEnabled(true);
+                    dialog.getButton(AlertDialog.BUTTON_POSITIVE).setEnabled(true);
+                }
+
+                @Override
+                public void onError(Exception error) {
+                    if (!dialog.isShowing()) {
+                        return;
+                    }
+                    dialog.dismiss();
+                    Toast.makeText(ProductsActivity.this,
+                            "No se pudo cargar el producto", Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+    }
+
+    /**
+     * Lo escrito en el diálogo abierto, sobre una copia del producto que edita
+     * Mientras la descripción no se puede editar (detalle cargando) queda la del producto.
+     */
+    private Product readDialogDraft() {
+        EditText etTitle = productDialog.findViewById(R.id.et_product_name);
+        EditText etDescription = productDialog.findViewById(R.id.et_product_description);
+        EditText etPrice = productDialog.findViewById(R.id.et_product_price);
+        Spinner spinnerCategory = productDialog.findViewById(R.id.spinner_category);
+
+        Product draft = dialogEditing[0] != null
+                ? new Product(dialogEditing[0]) : new Product("", "", 0, CATEGORIES[0]);
+        draft.setTitle(etTitle.getText().toString());
+        if (etDescription.isEnabled()) {
+            draft.setDescription(etDescription.getText().toString());
+        }
+        try {
+            draft.setPrice(Double.parseDouble(etPrice.getText().toString().trim()));
+        } catch (IllegalArgumentException e) {
+            // Precio a medio escribir o negativo: queda el anterior
+        }
+        draft.setCategory(spinnerCategory.getSelectedItem().toString());
+        return draft;
     }
 
     @Override
@@ -172,263 +519,37 @@ public class ProductsActivity extends AppCompatActivity implements ProductAdapte
                 .setPositiveButton("Eliminar", new DialogInterface.OnClickListener() {
                     @Override
                     public void onClick(DialogInterface dialog, int which) {
-                        new DeleteProductTask().execute(product);
+                        deleteProduct(product);
                     }
                 })
                 .setNegativeButton("Cancelar", null)
                 .show();
     }
 
-    // ========== AsyncTask para GET (Obtener productos) ==========
-    private class GetProductsTask extends AsyncTask<Void, Void, String> {
-        @Override
-        protected void onPreExecute() {
-            progressDialog.show();
-        }
-
-        @Override
-        protected String doInBackground(Void... voids) {
-            HttpURLConnection conn = null;
-            BufferedReader reader = null;
-
-            try {
-                URL url = new URL(API_PRODUCTS);
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("GET");
-                conn.setRequestProperty("Accept", "application/json");
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setConnectTimeout(10000);
-                conn.setReadTimeout(10000);
-
-                int responseCode = conn.getResponseCode();
-                if (responseCode != HttpURLConnection.HTTP_OK) {
-                    return null;
-                }
-
-                reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-
-                return response.toString();
+    // ========== POST (Crear producto) ==========
+    // Los cambios se aplican en la lista al instante; la cola (en el ViewModel) los envía al API
 
-            } catch (Exception e) {
-                e.printStackTrace();
-                return null;
-            } finally {
-                if (reader != null) {
-                    try { reader.close(); } catch (Exception e) { e.printStackTrace(); }
-                }
-                if (conn != null) {
-                    conn.disconnect();
-                }
-            }
-        }
-
-        @Override
-        protected void onPostExecute(String result) {
-            progressDialog.dismiss();
-
-            if (result != null) {
-                try {
-                    productList.clear();
-                    JSONArray jsonArray = new JSONArray(result);
-
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        JSONObject obj = jsonArray.getJSONObject(i);
-                        Product product = new Product(obj);
-                        productList.add(product);
-                    }
-
-                    adapter.notifyDataSetChanged();
-                    Toast.makeText(ProductsActivity.this,
-                            productList.size() + " productos cargados", Toast.LENGTH_SHORT).show();
-
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    Toast.makeText(ProductsActivity.this,
-                            "Error al procesar datos", Toast.LENGTH_SHORT).show();
-                }
-            } else {
-                Toast.makeText(ProductsActivity.this,
-                        "Error de conexión", Toast.LENGTH_SHORT).show();
-            }
-        }
+    private void createProduct(Product product) {
+        viewModel.createProduct(product);
     }
 
-    // ========== AsyncTask para POST (Crear producto) ==========
-    private class CreateProductTask extends AsyncTask<Product, Void, Boolean> {
-        @Override
-        protected void onPreExecute() {
-            progressDialog.setMessage("Creando producto...");
-            progressDialog.show();
-        }
-
-        @Override
-        protected Boolean doInBackground(Product... products) {
-            HttpURLConnection conn = null;
-
-            try {
-                Product product = products[0];
-                URL url = new URL(API_PRODUCTS);
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("POST");
-                conn.setRequestProperty("Accept", "application/json");
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setDoOutput(true);
-                conn.setConnectTimeout(10000);
-                conn.setReadTimeout(10000);
-
-                // Convertir producto a JSON
-                JSONObject jsonProduct = product.toJSON();
-
-                // Enviar JSON
-                OutputStream os = conn.getOutputStream();
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
-                writer.write(jsonProduct.toString());
-                writer.flush();
-                writer.close();
-                os.close();
-
-                int responseCode = conn.getResponseCode();
-                return responseCode == HttpURLConnection.HTTP_OK ||
-                        responseCode == HttpURLConnection.HTTP_CREATED;
-
-            } catch (Exception e) {
-                e.printStackTrace();
-                return false;
-            } finally {
-                if (conn != null) {
-                    conn.disconnect();
-                }
-            }
-        }
-
-        @Override
-        protected void onPostExecute(Boolean success) {
-            progressDialog.dismiss();
-
-            if (success) {
-                Toast.makeText(ProductsActivity.this,
-                        "Producto creado exitosamente", Toast.LENGTH_SHORT).show();
-                loadProducts();
-            } else {
-                Toast.makeText(ProductsActivity.this,
-                        "Error al crear producto", Toast.LENGTH_SHORT).show();
-            }
-        }
+    // ========== PUT (Actualizar producto) ==========
+    private void updateProduct(Product product) {
+        viewModel.updateProduct(product);
     }
 
-    // ========== AsyncTask para PUT (Actualizar producto) ==========
-    private class UpdateProductTask extends AsyncTask<Product, Void, Boolean> {
-        @Override
-        protected void onPreExecute() {
-            progressDialog.setMessage("Actualizando producto...");
-            progressDialog.show();
-        }
-
-        @Override
-        protected Boolean doInBackground(Product... products) {
-            HttpURLConnection conn = null;
-
-            try {
-                Product product = products[0];
-                URL url = new URL(API_PRODUCTS + "/" + product.getId());
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("PUT");
-                conn.setRequestProperty("Accept", "application/json");
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setDoOutput(true);
-                conn.setConnectTimeout(10000);
-                conn.setReadTimeout(10000);
-
-                // Convertir producto a JSON
-                JSONObject jsonProduct = product.toJSON();
-
-                // Enviar JSON
-                OutputStream os = conn.getOutputStream();
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
-                writer.write(jsonProduct.toString());
-                writer.flush();
-                writer.close();
-                os.close();
-
-                int responseCode = conn.getResponseCode();
-                return responseCode == HttpURLConnection.HTTP_OK;
-
-            } catch (Exception e) {
-                e.printStackTrace();
-                return false;
-            } finally {
-                if (conn != null) {
-                    conn.disconnect();
-                }
-            }
-        }
-
-        @Override
-        protected void onPostExecute(Boolean success) {
-            progressDialog.dismiss();
-
-            if (success) {
-                Toast.makeText(ProductsActivity.this,
-                        "Producto actualizado exitosamente", Toast.LENGTH_SHORT).show();
-                loadProducts();
-            } else {
-                Toast.makeText(ProductsActivity.this,
-                        "Error al actualizar producto", Toast.LENGTH_SHORT).show();
-            }
-        }
+    // ========== DELETE (Eliminar producto) ==========
+    private void deleteProduct(Product product) {
+        viewModel.deleteProduct(product);
     }
 
-    // ========== AsyncTask para DELETE (Eliminar producto) ==========
-    private class DeleteProductTask extends AsyncTask<Product, Void, Boolean> {
-        @Override
-        protected void onPreExecute() {
-            progressDialog.setMessage("Eliminando producto...");
-            progressDialog.show();
-        }
-
-        @Override
-        protected Boolean doInBackground(Product... products) {
-            HttpURLConnection conn = null;
-
-            try {
-                Product product = products[0];
-                URL url = new URL(API_PRODUCTS + "/" + product.getId());
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("DELETE");
-                conn.setConnectTimeout(10000);
-                conn.setReadTimeout(10000);
-
-                int responseCode = conn.getResponseCode();
-                return responseCode == HttpURLConnection.HTTP_OK ||
-                        responseCode == HttpURLConnection.HTTP_NO_CONTENT;
-
-            } catch (Exception e) {
-                e.printStackTrace();
-                return false;
-            } finally {
-                if (conn != null) {
-                    conn.disconnect();
-                }
-            }
-        }
-
-        @Override
-        protected void onPostExecute(Boolean success) {
-            progressDialog.dismiss();
-
-            if (success) {
-                Toast.makeText(ProductsActivity.this,
-                        "Producto eliminado exitosamente", Toast.LENGTH_SHORT).show();
-                loadProducts();
-            } else {
-                Toast.makeText(ProductsActivity.this,
-                        "Error al eliminar producto", Toast.LENGTH_SHORT).show();
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            ImageLoader.getInstance(this).trimMemory();
+            if (pager != null) {
+                pager.trimMemory();
             }
         }
     }
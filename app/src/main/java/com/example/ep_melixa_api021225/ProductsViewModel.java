@@ -0,0 +1,428 @@
+package com.example.ep_melixa_api021225;
+
+import android.app.Application;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.SavedStateHandle;
+import java.util.List;
+
+/**
+ * Estado de la pantalla de productos que sobrevive a la actividad
+ *
+ * Una rotación, el modo oscuro o cualquier otro cambio de configuración
+ * recrea ProductsActivity pero no este objeto: el catálogo (ProductStore),
+ * el índice de búsqueda, el paginador y la carga en curso siguen acá, y la
+ * pantalla nueva solo los vuelve a dibujar, sin red ni parseo. Las cargas
+ * se cancelan recién cuando la pantalla se cierra (onCleared).
+ *
+ * Las respuestas de ProductOutbox también llegan acá y no a la pantalla:
+ * el cambio del ID local por el del servidor tras un alta se aplica al
+ * store aunque la confirmación llegue en medio de una rotación.
+ *
+ * Si el sistema mata el proceso, SavedStateHandle guarda solo lo mínimo
+ * (búsqueda, filtros y orden): el catálogo no entra en el Bundle, se vuelve
+ * a mostrar desde el snapshot en disco (CatalogSnapshot) como en un inicio
+ * en frío.
+ */
+public class ProductsViewModel extends AndroidViewModel {
+
+    // Claves del estado guardado
+    private static final String KEY_TEXT = "query_text";
+    private static final String KEY_CATEGORY = "query_category";
+    private static final String KEY_IN_STOCK = "query_in_stock";
+    private static final String KEY_SORT = "sort_order";
+
+    /**
+     * Avisos para la pantalla actual (en el hilo principal)
+     */
+    public interface Listener {
+        /**
+         * Cambió el catálogo: volver a dibujar
+         */
+        void onProductsChanged();
+
+        /**
+         * Terminó la carga; total es NOT_MODIFIED si el catálogo ya estaba al día
+         */
+        void onLoadFinished(int total);
+
+        void onLoadFailed(Exception error);
+
+        /**
+         * El servidor no aceptó un cambio; ya se está volviendo a lo que tiene
+         */
+        void onMutationFailed(Product product);
+
+        /**
+         * Cambios guardados localmente que aún no llegaron al servidor
+         */
+        void onPendingChanged(int pending);
+    }
+
+    public static final int NOT_MODIFIED = ProductRepository.NOT_MODIFIED;
+
+    private final SavedStateHandle state;
+    private final ProductRepository repository;
+    private final ProductOutbox outbox;
+    private final ProductStore store = new ProductStore();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final ProductSearchIndex.Query query = new ProductSearchIndex.Query();
+    private final TaskScope scope = new TaskScope();
+
+    private Listener listener;
+    private ProductPager pager;
+    private boolean started;
+    private boolean loading;
+
+    public ProductsViewModel(@NonNull Application application, @NonNull SavedStateHandle state) {
+        super(application);
+        this.state = state;
+        this.repository = ProductRepository.getInstance(application);
+        this.outbox = ProductOutbox.getInstance(application);
+
+        // Búsqueda de antes de que el sistema cerrara el proceso
+        query.setText(state.<String>get(KEY_TEXT));
+        query.setCategory(state.<String>get(KEY_CATEGORY));
+        query.setInStock(state.<Boolean>get(KEY_IN_STOCK));
+
+        outbox.setListener(outboxListener);
+
+        // El índice sigue al store aunque no haya pantalla (durante una rotación)
+        store.setChangeListener(new ProductStore.ChangeListener() {
+            @Override
+            public void onItemRangeInserted(int position, int count) {
+                for (int i = position; i < position + count; i++) {
+                    searchIndex.put(store.get(i));
+                }
+                notifyChanged();
+            }
+
+            @Override
+            public void onItemChanged(int position) {
+                searchIndex.put(store.get(position));
+                notifyChanged();
+            }
+
+            @Override
+            public void onItemRemoved(int position, Product removed) {
+                searchIndex.remove(removed.getId());
+                notifyChanged();
+            }
+
+            @Override
+            public void onDataSetChanged() {
+                searchIndex.rebuild(store.snapshot());
+                notifyChanged();
+            }
+        });
+    }
+
+    /**
+     * La pantalla actual; null al destruirla
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Primera vez: empieza a cargar. Al recrear la pantalla no hace nada.
+     *
+     * @return true si empezó una carga
+     */
+    public boolean start(boolean paged, int pageSize, int prefetchDistance, int maxPages) {
+        if (started) {
+            return false;
+        }
+        started = true;
+        if (paged) {
+            pager = repository.createPager(scope, pageSize, prefetchDistance, maxPages);
+            pager.start();
+            return true;
+        }
+        load();
+        return true;
+    }
+
+    // ========== CATÁLOGO ==========
+
+    /**
+     * Carga o revalida el catálogo
+     * Muestra al instante lo que ya haya en memoria o en disco.
+     */
+    public void load() {
+        // Catálogo ya descargado (por ejemplo durante el splash): se muestra ya
+        // y la carga de abajo solo confirma que sigue vigente
+        List<Product> lastCatalog = store.isEmpty() ? repository.getLastCatalog() : null;
+        // El snapshot puede ser de otra versión que la última entregada: no cuenta como vigente
+        boolean hasCurrent = !store.isEmpty() || lastCatalog != null;
+        if (lastCatalog != null) {
+            store.replaceAll(lastCatalog);
+            applyPendingChanges();
+        } else if (store.isEmpty()) {
+            // Inicio en frío: copia binaria del último catálogo, sin esperar a la red.
+            // Va al store como cualquier catálogo, así editar o borrar una fila
+            // funciona igual antes y después de que responda la red.
+            CatalogSnapshot snapshot = repository.openSnapshot();
+            if (snapshot != null && snapshot.size() > 0) {
+                store.replaceAll(snapshot.asList());
+                applyPendingChanges();
+            }
+        }
+
+        repository.loadProducts(scope, hasCurrent, catalogCallback());
+    }
+
+    /**
+     * Deshace los cambios locales rechazados: vuelve a poner en el store el
+     * catálogo del servidor (aunque no haya cambiado) y encima lo pendiente
+     */
+    private void revert() {
+        repository.reloadProducts(scope, catalogCallback());
+    }
+
+    /**
+     * Lotes al store; al terminar, los cambios pendientes encima
+     */
+    private ProductRepository.BatchCallback catalogCallback() {
+        loading = true;
+        return new ProductRepository.BatchCallback() {
+            private boolean received;
+
+            @Override
+            public void onBatch(List<Product> batch, boolean first) {
+                // Las primeras filas se muestran antes de terminar la descarga
+                if (first) {
+                    store.replaceAll(batch);
+                } else {
+                    store.addAll(batch);
+                }
+                received = true;
+            }
+
+            @Override
+            public void onNotModified() {
+                // Sin cambios en el servidor: la lista actual sigue vigente
+                loading = false;
+                if (listener != null) {
+                    listener.onLoadFinished(NOT_MODIFIED);
+                }
+            }
+
+            @Override
+            public void onSuccess(Integer total) {
+                loading = false;
+                if (!received) {
+                    store.clear();
+                }
+                applyPendingChanges();
+                if (listener != null) {
+                    listener.onLoadFinished(total);
+                }
+            }
+
+            @Override
+            public void onError(Exception error) {
+                loading = false;
+                if (listener != null) {
+                    listener.onLoadFailed(error);
+                }
+            }
+        };
+    }
+
+    // ========== CAMBIOS ==========
+    // Se aplican en la lista al instante; la cola los envía al API
+
+    public void createProduct(Product product) {
+        Product local = outbox.create(product);
+        if (pager == null) {
+            store.upsert(local);
+        }
+    }
+
+    public void updateProduct(Product product) {
+        outbox.update(product);
+        if (pager != null) {
+            pager.update(product);
+        } else {
+            store.upsert(product);
+        }
+    }
+
+    public void deleteProduct(Product product) {
+        outbox.delete(product);
+        if (pager == null) {
+            store.remove(product.getId());
+        }
+    }
+
+    public int getPendingCount() {
+        return outbox.getPendingCount();
+    }
+
+    private final ProductOutbox.Listener outboxListener = new ProductOutbox.Listener() {
+        @Override
+        public void onApplied(ProductOutbox.Mutation mutation, Product result) {
+            if (mutation.getType() == ProductOutbox.Mutation.Type.UPDATE) {
+                // Lo que devolvió el PUT (campos que el servidor normaliza), salvo
+                // que haya otro cambio local más nuevo del mismo producto
+                if (result == null || hasPending(result.getId())) {
+                    return;
+                }
+                if (pager != null) {
+                    pager.update(result);
+                } else if (store.indexOf(result.getId()) >= 0) {
+                    store.upsert(result);
+                }
+                return;
+            }
+            if (pager != null) {
+                pager.invalidate();
+            } else if (mutation.getType() == ProductOutbox.Mutation.Type.CREATE
+                    && store.indexOf(mutation.getProduct().getId()) >= 0) {
+                // Reemplazar la copia con ID local por la del servidor
+                store.remove(mutation.getProduct().getId());
+                store.upsert(result);
+            }
+        }
+
+        @Override
+        public void onFailed(ProductOutbox.Mutation mutation, Exception error) {
+            // Volver a lo que tiene el servidor
+            if (pager != null) {
+                pager.invalidate();
+            } else {
+                revert();
+            }
+            if (listener != null) {
+                listener.onMutationFailed(mutation.getProduct());
+            }
+        }
+
+        @Override
+        public void onPendingChanged(int pending) {
+            if (listener != null) {
+                listener.onPendingChanged(pending);
+            }
+        }
+    };
+
+    private boolean hasPending(String id) {
+        for (ProductOutbox.Mutation mutation : outbox.getPending()) {
+            if (mutation.getProduct().getId().equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vuelve a aplicar los cambios que el servidor aún no tiene
+     * sobre el catálogo recién descargado
+     */
+    private void applyPendingChanges() {
+        for (ProductOutbox.Mutation mutation : outbox.getPending()) {
+            if (mutation.getType() == ProductOutbox.Mutation.Type.DELETE) {
+                store.remove(mutation.getProduct().getId());
+            } else {
+                store.upsert(mutation.getProduct());
+            }
+        }
+    }
+
+    /**
+     * Producto completo para editar una fila resumida (ver Product.isSummary())
+     *
+     * @param scope el de la pantalla que lo muestra: el diálogo no sobrevive
+     *              a una rotación, así que la respuesta tampoco debe llegar
+     */
+    public void loadProductDetail(TaskScope scope, Product product, ProductRepository.Callback<Product> callback) {
+        repository.loadProductDetail(scope, product, callback);
+    }
+
+    public ProductStore getStore() {
+        return store;
+    }
+
+    /**
+     * Paginador en modo paginado, o null
+     */
+    public ProductPager getPager() {
+        return pager;
+    }
+
+    /**
+     * true mientras no hay nada que mostrar y se espera a la red
+     */
+    public boolean isWaitingForCatalog() {
+        return loading && store.isEmpty();
+    }
+
+    // ========== BÚSQUEDA ==========
+
+    /**
+     * Resultado de la búsqueda actual, o null para mostrar el catálogo completo
+     */
+    public List<Product> search() {
+        return query.isEmpty() ? null : searchIndex.search(query);
+    }
+
+    public void setQueryText(String text) {
+        query.setText(text);
+        state.set(KEY_TEXT, text);
+    }
+
+    public String getQueryText() {
+        return state.get(KEY_TEXT);
+    }
+
+    public void setCategory(String category) {
+        query.setCategory(category);
+        state.set(KEY_CATEGORY, category);
+    }
+
+    public String getCategory() {
+        return state.get(KEY_CATEGORY);
+    }
+
+    /**
+     * @param inStock TRUE para solo en stock, null para todos
+     */
+    public void setInStock(Boolean inStock) {
+        query.setInStock(inStock);
+        state.set(KEY_IN_STOCK, inStock);
+    }
+
+    public boolean isInStockOnly() {
+        return Boolean.TRUE.equals(state.get(KEY_IN_STOCK));
+    }
+
+    /**
+     * ProductStore.ORDER_*
+     */
+    public void setSortOrder(int sortOrder) {
+        state.set(KEY_SORT, sortOrder);
+    }
+
+    public int getSortOrder() {
+        Integer sortOrder = state.get(KEY_SORT);
+        return sortOrder != null ? sortOrder : ProductStore.ORDER_NONE;
+    }
+
+    private void notifyChanged() {
+        if (listener != null) {
+            listener.onProductsChanged();
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        // La pantalla se cerró de verdad: cortar cargas y paginado
+        listener = null;
+        outbox.removeListener(outboxListener);
+        scope.cancel();
+        if (pager != null) {
+            pager.setListener(null);
+        }
+    }
+}
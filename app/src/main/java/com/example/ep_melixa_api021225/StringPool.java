@@ -0,0 +1,155 @@
+package com.example.ep_melixa_api021225;
+
+/**
+ * Diccionario de textos repetidos (categoría, disponibilidad)
+ *
+ * Con miles de productos hay solo unos pocos valores distintos de categoría
+ * y disponibilidad, pero cada parseo crearía un String nuevo por fila. El
+ * pool devuelve siempre la misma instancia por valor: el catálogo guarda una
+ * copia de cada texto y comparar valores del pool es comparar referencias.
+ * JsonStreamReader busca directamente sobre sus caracteres, así un valor ya
+ * conocido no crea ningún String.
+ *
+ * Viene cargado con los valores de FakeStores; los nuevos (otra categoría)
+ * se suman solos con intern() o de antemano con add(). Tiene un máximo: si
+ * la API mandara valores sin repetir, pasado el límite se devuelven tal cual
+ * en lugar de crecer sin fin.
+ *
+ * Las búsquedas no bloquean (tabla inmutable en un campo volatile); las
+ * altas se sincronizan y reemplazan la tabla, son pocas.
+ */
+public final class StringPool {
+
+    // Valores de la API: categorías y disponibilidad
+    private static final String[] KNOWN_VALUES = {
+            Product.IN_STOCK, Product.OUT_OF_STOCK,
+            "electronics", "jewelery", "men's clothing", "women's clothing"
+    };
+    private static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final StringPool DEFAULT = new StringPool(DEFAULT_MAX_SIZE, KNOWN_VALUES);
+
+    private final int maxSize;
+    // Direccionamiento abierto; null = libre. Tamaño potencia de 2, menos de la mitad ocupada
+    private volatile String[] table;
+    private int size;
+
+    /**
+     * @param maxSize valores distintos como máximo
+     * @param values  valores con los que arranca
+     */
+    public StringPool(int maxSize, String... values) {
+        this.maxSize = maxSize;
+        this.table = new String[16];
+        for (String value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Pool compartido por Product, ProductCodec y ProductStore
+     */
+    public static StringPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Instancia compartida con el mismo texto; null sigue siendo null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String found = find(table, value, value.hashCode());
+        return found != null ? found : add(value);
+    }
+
+    /**
+     * Igual que intern(String) pero sin crear un String si el valor ya está
+     */
+    String intern(CharSequence chars) {
+        int hash = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        String found = find(table, chars, hash);
+        return found != null ? found : add(chars.toString());
+    }
+
+    /**
+     * Registra un valor (por ejemplo una categoría nueva) y devuelve la
+     * instancia que queda en el pool
+     */
+    public synchronized String add(String value) {
+        String[] current = table;
+        String found = find(current, value, value.hashCode());
+        if (found != null) {
+            return found;
+        }
+        if (size >= maxSize) {
+            return value;
+        }
+        int capacity = current.length;
+        while ((size + 1) * 2 > capacity) {
+            capacity *= 2;
+        }
+        // Copia nueva: quien lee la tabla anterior no ve cambios a medias
+        String[] next = new String[capacity];
+        for (String existing : current) {
+            if (existing != null) {
+                put(next, existing);
+            }
+        }
+        put(next, value);
+        size++;
+        table = next;
+        return value;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // ========== TABLA ==========
+
+    private static String find(String[] table, CharSequence value, int hash) {
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            String candidate = table[slot];
+            if (candidate.hashCode() == hash && contentEquals(candidate, value)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static void put(String[] table, String value) {
+        int mask = table.length - 1;
+        int slot = spread(value.hashCode()) & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+    }
+
+    private static boolean contentEquals(String candidate, CharSequence value) {
+        if (candidate == value) {
+            return true;
+        }
+        int length = candidate.length();
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.ep_melixa_api021225;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planificador de las tareas que llaman a la API
+ *
+ * Un pool de tamaño fijo con una cola por prioridad: lo que pide el usuario
+ * (USER: altas, cambios, bajas) sale antes que lo que se muestra en pantalla
+ * (VISIBLE: catálogo, páginas), y esto antes que el trabajo de fondo
+ * (BACKGROUND: sincronización, precargas). Dentro de una prioridad se
+ * respeta el orden de llegada. Así una descarga lenta del catálogo ocupa un
+ * hilo, pero no deja en espera a un DELETE que llegó después.
+ *
+ * Cada tarea puede pertenecer a un TaskScope: si se cancela antes de empezar
+ * se saca de la cola; si ya empezó, termina (una petición HTTP no se corta a
+ * medias) y quien la lanzó descarta el resultado.
+ */
+public class TaskScheduler {
+
+    public enum Priority {
+        USER, VISIBLE, BACKGROUND
+    }
+
+    private static final long KEEP_ALIVE = 30;    // segundos sin trabajo antes de soltar un hilo
+
+    private final ThreadPoolExecutor pool;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param threads tareas en paralelo como máximo
+     * @param name    prefijo del nombre de los hilos
+     */
+    public TaskScheduler(int threads, final String name) {
+        pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Encola una tarea
+     *
+     * @param scope scope que la cancela, o null si vive hasta terminar
+     */
+    public Task submit(Priority priority, TaskScope scope, Runnable work) {
+        Task task = new Task(priority, sequence.getAndIncrement(), scope, work);
+        if (scope != null && !scope.add(task)) {
+            return task;
+        }
+        pool.execute(task);
+        return task;
+    }
+
+    /**
+     * Executor que encola con la prioridad y el scope dados (para ProductPager)
+     */
+    public Executor executor(final Priority priority, final TaskScope scope) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                submit(priority, scope, command);
+            }
+        };
+    }
+
+    /**
+     * Tareas que esperan un hilo
+     */
+    public int getQueuedCount() {
+        return pool.getQueue().size();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Espera a que terminen las tareas después de shutdown()
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Una tarea encolada; cancel() la saca de la cola si todavía no empezó
+     */
+    public class Task implements Runnable, Comparable<Task>, TaskScope.Cancellable {
+        private final Priority priority;
+        private final long order;
+        private final TaskScope scope;
+        private Runnable work;
+        private volatile boolean cancelled;
+
+        Task(Priority priority, long order, TaskScope scope, Runnable work) {
+            this.priority = priority;
+            this.order = order;
+            this.scope = scope;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            Runnable pending;
+            synchronized (this) {
+                pending = work;
+                // Sin referencia a la tarea: lo que capturó puede liberarse al terminar
+                work = null;
+            }
+            try {
+                if (pending != null && !cancelled) {
+                    pending.run();
+                }
+            } finally {
+                if (scope != null) {
+                    scope.remove(this);
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (pool.remove(this)) {
+                synchronized (this) {
+                    work = null;
+                }
+            }
+            if (scope != null) {
+                scope.remove(this);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return priority.compareTo(other.priority);
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.ep_melixa_api021225;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Agrupa el trabajo en segundo plano de una pantalla para cancelarlo junto
+ *
+ * La actividad crea un TaskScope, lo pasa al pedir datos y llama a cancel()
+ * en onDestroy(). Al cancelar, las tareas que todavía esperan en la cola no
+ * corren, las descargas que nadie más espera se abandonan y ningún resultado
+ * llega a la pantalla: así no se actualizan vistas destruidas ni se retiene
+ * la actividad hasta que termine una llamada lenta.
+ *
+ * cancel() y las entregas de guard() corren en el hilo principal, por eso
+ * una entrega nunca llega después de cancelar.
+ */
+public class TaskScope {
+
+    /**
+     * Algo que se puede cancelar junto con el scope
+     */
+    public interface Cancellable {
+        void cancel();
+    }
+
+    private final Set<Cancellable> members = new LinkedHashSet<>();
+    private volatile boolean cancelled;
+
+    /**
+     * Suma un miembro; si el scope ya se canceló lo cancela en el acto
+     *
+     * @return false si el miembro quedó cancelado
+     */
+    public boolean add(Cancellable member) {
+        synchronized (members) {
+            if (!cancelled) {
+                members.add(member);
+                return true;
+            }
+        }
+        member.cancel();
+        return false;
+    }
+
+    /**
+     * Quita un miembro que ya terminó
+     */
+    public void remove(Cancellable member) {
+        synchronized (members) {
+            members.remove(member);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancela todos los miembros; las llamadas siguientes no hacen nada
+     */
+    public void cancel() {
+        List<Cancellable> cancelling;
+        synchronized (members) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            cancelling = new ArrayList<>(members);
+            members.clear();
+        }
+        for (Cancellable member : cancelling) {
+            member.cancel();
+        }
+    }
+
+    /**
+     * Executor que descarta lo que llegue a ejecutar después de cancel()
+     * El chequeo se hace al correr (en el hilo de delivery), no al encolar.
+     */
+    public Executor guard(final Executor delivery) {
+        return new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                delivery.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!cancelled) {
+                            command.run();
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Scope de un executor opcional: sin scope, las entregas van directo
+     */
+    static Executor guard(TaskScope scope, Executor delivery) {
+        return scope != null ? scope.guard(delivery) : delivery;
+    }
+}
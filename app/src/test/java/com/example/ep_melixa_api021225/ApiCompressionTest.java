@@ -0,0 +1,86 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONArray;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la compresión gzip de respuestas y peticiones
+ */
+public class ApiCompressionTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FakeStoresServer server;
+    private ApiClient client;
+    private ProductRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeStoresServer();
+        server.seed(200);
+        server.start();
+        client = new ApiClient(server.getBaseUrl());
+        repository = new ProductRepository(client, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void catalog_isDownloadedCompressed() throws Exception {
+        List<Product> products = repository.getProducts();
+        assertEquals(200, products.size());
+        assertEquals("Descripción del producto p200", products.get(199).getDescription());
+        assertEquals(1, server.getGzipResponseCount());
+
+        // Los bytes medidos son los del cable
+        JSONArray json = new JSONArray();
+        for (Product product : products) {
+            json.put(product.toJSON());
+        }
+        int plain = json.toString().getBytes(StandardCharsets.UTF_8).length;
+        long received = client.getMetrics().getBytesReceived(ApiMetrics.Operation.GET);
+        assertTrue("recibidos " + received + " de " + plain, received * 3 < plain);
+    }
+
+    @Test
+    public void conditionalGet_withCompression_readsEmpty304() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(tempFolder.newFolder("http"), 1024 * 1024);
+        ProductRepository cached = new ProductRepository(client, Runnable::run, cache);
+        assertEquals(200, cached.getProducts().size());
+        assertEquals(200, cached.getProducts().size());
+        assertEquals(1, server.getNotModifiedCount());
+    }
+
+    @Test
+    public void largeBodies_areCompressedWhenEnabled() throws Exception {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 2 * ApiClient.MIN_COMPRESSED_BODY) {
+            description.append("Descripción larga y repetitiva. ");
+        }
+        Product large = new Product("Grande", description.toString(), 1.0, "electronics");
+
+        repository.createProduct(large);
+        assertEquals(0, server.getGzipRequestCount());
+
+        client.setRequestCompression(true);
+        repository.createProduct(new Product("Chico", "Desc", 1.0, "electronics"));
+        assertEquals(0, server.getGzipRequestCount());
+        Product created = repository.createProduct(large);
+        assertEquals(1, server.getGzipRequestCount());
+        assertEquals(description.toString(), created.getDescription());
+        assertTrue(client.getMetrics().getBytesSent(ApiMetrics.Operation.POST) < 3 * description.length());
+    }
+}
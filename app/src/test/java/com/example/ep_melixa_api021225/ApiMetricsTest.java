@@ -0,0 +1,98 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las métricas de la API
+ */
+public class ApiMetricsTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FakeStoresServer server;
+    private ApiClient client;
+    private ApiMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeStoresServer();
+        server.seed(20);
+        server.start();
+        client = new ApiClient(server.getBaseUrl());
+        metrics = client.getMetrics();
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void histogram_reportsBucketUpperBounds() {
+        ApiMetrics.Histogram histogram = new ApiMetrics.Histogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1_500_000);     // 1.5 ms -> cubeta < 2.048 ms
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100_000_000);   // 100 ms
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(2.048, histogram.getPercentileMillis(0.50), 0.001);
+        assertEquals(2.048, histogram.getPercentileMillis(0.90), 0.001);
+        assertEquals(131.072, histogram.getPercentileMillis(0.99), 0.001);
+        assertEquals(100.0, histogram.getMaxMillis(), 0.001);
+        assertEquals(11.35, histogram.getMeanMillis(), 0.001);
+    }
+
+    @Test
+    public void catalogLoads_recordPhasesBytesAndCacheResults() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(tempFolder.newFolder("http"), 1024 * 1024);
+        ProductRepository repository = new ProductRepository(client, Runnable::run, cache);
+
+        repository.getProducts();
+        repository.getProducts();
+        assertEquals(2, metrics.getRequestCount(ApiMetrics.Operation.GET));
+        assertEquals(1, metrics.getCacheCount(ApiMetrics.CacheResult.MISS));
+        assertEquals(1, metrics.getCacheCount(ApiMetrics.CacheResult.NOT_MODIFIED));
+        assertTrue(metrics.getBytesReceived(ApiMetrics.Operation.GET) > 0);
+        for (ApiMetrics.Phase phase : ApiMetrics.Phase.values()) {
+            assertEquals(phase.name(), 2, metrics.getHistogram(ApiMetrics.Operation.GET, phase).getCount());
+        }
+
+        repository.createProduct(new Product("Nuevo", "Desc", 1.0, "electronics"));
+        assertEquals(1, metrics.getRequestCount(ApiMetrics.Operation.POST));
+        assertTrue(metrics.getBytesSent(ApiMetrics.Operation.POST) > 0);
+        assertTrue(metrics.dump().contains("POST: 1 llamadas"));
+    }
+
+    @Test
+    public void failures_areCountedByCause() throws Exception {
+        ProductRepository repository = new ProductRepository(client, Runnable::run);
+        try {
+            repository.deleteProduct("no-existe");
+            fail();
+        } catch (ApiException expected) {
+        }
+        assertEquals(1, metrics.getErrorCount(ApiMetrics.Operation.DELETE, ApiMetrics.ErrorCause.HTTP_4XX));
+
+        server.stop();
+        try {
+            repository.getProducts();
+            fail();
+        } catch (IOException expected) {
+        }
+        // Un error por intento
+        assertEquals(ApiClient.DEFAULT_MAX_ATTEMPTS,
+                metrics.getErrorCount(ApiMetrics.Operation.GET, ApiMetrics.ErrorCause.CONNECT));
+        assertTrue(metrics.dump().contains("error CONNECT: " + ApiClient.DEFAULT_MAX_ATTEMPTS));
+    }
+}
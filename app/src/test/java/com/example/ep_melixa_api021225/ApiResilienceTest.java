@@ -0,0 +1,195 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de reintentos, timeouts adaptativos y circuit breaker
+ * contra el servidor local con fallas inyectadas
+ */
+public class ApiResilienceTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FakeStoresServer server;
+    private ApiClient client;
+    private ProductRepository repository;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeStoresServer();
+        server.seed(3);
+        server.start();
+        client = new ApiClient(server.getBaseUrl(), 2000, 2000, 1);
+        client.setRetryPolicy(3, 1, 5);
+        client.setCircuitBreaker(new CircuitBreaker(3, 1000, new CircuitBreaker.Clock() {
+            @Override
+            public long now() {
+                return now;
+            }
+        }));
+        repository = new ProductRepository(client, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void idempotentCalls_retryTransientFailures() throws Exception {
+        server.failNext(2, 503);
+        assertEquals(3, repository.getProducts().size());
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, client.getMetrics().getRetryCount(ApiMetrics.Operation.GET));
+
+        // Conexión cortada sin respuesta: se vuelve a enviar (acá o en HttpURLConnection)
+        server.dropNext(1);
+        repository.deleteProduct("p1");
+        assertEquals(5, server.getRequestCount());
+        assertEquals(2, repository.getProducts().size());
+    }
+
+    @Test
+    public void post_isNotRetried() throws Exception {
+        server.failNext(1, 503);
+        try {
+            repository.createProduct(new Product("Nuevo", "Desc", 1.0, "electronics"));
+            fail();
+        } catch (ApiException e) {
+            assertEquals(503, e.getStatusCode());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void clientErrors_areNotRetried() throws Exception {
+        try {
+            repository.deleteProduct("no-existe");
+            fail();
+        } catch (ApiException e) {
+            assertEquals(404, e.getStatusCode());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void breaker_opensFailsFastAndRecovers() throws Exception {
+        server.failNext(3, 500);
+        try {
+            repository.getProducts();
+            fail();
+        } catch (ApiException expected) {
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+
+        // Abierto: ni siquiera llega al servidor
+        try {
+            repository.getProducts();
+            fail();
+        } catch (CircuitBreaker.OpenException expected) {
+        }
+        assertEquals(3, server.getRequestCount());
+
+        // Pasado el tiempo, una llamada de prueba exitosa lo cierra
+        now += 1000;
+        assertEquals(CircuitBreaker.State.HALF_OPEN, client.getCircuitBreaker().getState());
+        assertEquals(3, repository.getProducts().size());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void cancelledReads_areNotFailures() throws Exception {
+        // Más cancelaciones seguidas que el umbral del breaker (3)
+        for (int i = 0; i < 5; i++) {
+            try {
+                client.execute("GET", "/products", null, (code, body, conn) -> {
+                    throw new ApiClient.CancelledException("Nadie espera el resultado");
+                });
+                fail();
+            } catch (ApiClient.CancelledException expected) {
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+        assertEquals(5, server.getRequestCount());
+        for (ApiMetrics.ErrorCause cause : ApiMetrics.ErrorCause.values()) {
+            assertEquals(0, client.getMetrics().getErrorCount(ApiMetrics.Operation.GET, cause));
+        }
+    }
+
+    @Test
+    public void unhealthyApi_servesCachedCatalog() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(tempFolder.newFolder("http"), 1024 * 1024);
+        ProductRepository cached = new ProductRepository(client, Runnable::run, cache);
+        assertEquals(3, cached.getProducts().size());
+
+        server.failNext(100, 502);
+        assertEquals(3, cached.getProducts().size());
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+        int requests = server.getRequestCount();
+        assertEquals(3, cached.getProducts().size());
+        assertEquals(requests, server.getRequestCount());
+        assertEquals(2, client.getMetrics().getCacheCount(ApiMetrics.CacheResult.STALE));
+    }
+
+    @Test
+    public void readTimeout_adaptsToObservedLatency() throws Exception {
+        assertEquals(2000, client.getCurrentReadTimeout(ApiMetrics.Operation.GET));
+        for (int i = 0; i < 5; i++) {
+            repository.getProducts();
+        }
+        // Respuestas locales de pocos ms: baja hasta el piso
+        assertEquals(ApiClient.MIN_READ_TIMEOUT, client.getCurrentReadTimeout(ApiMetrics.Operation.GET));
+
+        AdaptiveTimeout timeout = new AdaptiveTimeout(100, 10000);
+        for (int i = 0; i < 20; i++) {
+            timeout.record(300);
+        }
+        assertEquals(300, timeout.getMillis(), 50);
+        timeout.onTimeout();
+        assertTrue(timeout.getMillis() >= 600);
+    }
+
+    @Test
+    public void slowServer_timesOutAndRetries() throws Exception {
+        client.setRetryPolicy(2, 1, 5);
+        server.setDelay(2500);
+        try {
+            repository.getProducts();
+            fail();
+        } catch (SocketTimeoutException expected) {
+        }
+        assertEquals(1, client.getMetrics().getRetryCount(ApiMetrics.Operation.GET));
+        assertEquals(2, client.getMetrics().getErrorCount(ApiMetrics.Operation.GET, ApiMetrics.ErrorCause.TIMEOUT));
+    }
+
+    @Test
+    public void retryDelay_isJitteredAndCapped() {
+        client.setRetryPolicy(5, 100, 250);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(client.retryDelay(1) <= 100);
+            assertTrue(client.retryDelay(4) <= 250);
+        }
+    }
+
+    @Test
+    public void offline_withoutCache_stillThrows() throws Exception {
+        server.stop();
+        try {
+            repository.getProducts();
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
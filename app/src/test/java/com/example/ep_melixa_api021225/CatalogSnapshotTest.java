@@ -0,0 +1,145 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del snapshot binario del catálogo
+ */
+public class CatalogSnapshotTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static List<Product> catalog(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product("id" + i, "Producto " + i, "Descripción " + i,
+                    i * 1.5, i % 2 == 0 ? "electronics" : "hogar y jardín", null);
+            product.setRating((i % 50) / 10.0);
+            product.setRatingCount(i);
+            product.setAvailability(i % 3 == 0 ? "OutOfStock" : "InStock");
+            products.add(product);
+        }
+        return products;
+    }
+
+    @Test
+    public void writeThenOpen_readsEveryProductInAnyOrder() throws Exception {
+        File file = tempFolder.newFile("catalog.snapshot");
+        List<Product> products = catalog(500);
+        CatalogSnapshot.write(file, products, "\"v7\"");
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        assertEquals(500, snapshot.size());
+        assertEquals("\"v7\"", snapshot.getVersion());
+        // Acceso salteado: cada fila se decodifica por separado
+        for (int i = products.size() - 1; i >= 0; i -= 7) {
+            Product expected = products.get(i);
+            Product actual = snapshot.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getCategory(), actual.getCategory());
+            assertEquals(expected.getAvailability(), actual.getAvailability());
+            assertEquals(expected.getPrice(), actual.getPrice(), 0);
+            assertEquals(expected.getRatingCount(), actual.getRatingCount());
+        }
+        assertSame(snapshot.get(3), snapshot.asList().get(3));
+        assertEquals(500, snapshot.asList().size());
+    }
+
+    @Test
+    public void write_replacesPreviousSnapshot() throws Exception {
+        File file = new File(tempFolder.getRoot(), "catalog.snapshot");
+        CatalogSnapshot.write(file, catalog(10), "a");
+        CatalogSnapshot.write(file, catalog(2), null);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        assertEquals(2, snapshot.size());
+        assertNull(snapshot.getVersion());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void concurrentWriters_leaveOneCompleteFile() throws Exception {
+        final File file = new File(tempFolder.getRoot(), "catalog.snapshot");
+        Thread[] writers = new Thread[4];
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        for (int w = 0; w < writers.length; w++) {
+            final int size = 200 + w * 100;
+            writers[w] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        CatalogSnapshot.write(file, catalog(size), "v" + size);
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        assertEquals("v" + snapshot.size(), snapshot.getVersion());
+        assertEquals(1, tempFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void open_missingOrForeignFile_returnsNull() throws Exception {
+        assertNull(CatalogSnapshot.open(new File(tempFolder.getRoot(), "no-existe")));
+
+        File file = tempFolder.newFile("catalog.snapshot");
+        CatalogSnapshot.write(file, catalog(3), "a");
+        // Otra versión del formato: se ignora en lugar de leer basura
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(4);
+        raf.writeInt(CatalogSnapshot.FORMAT_VERSION + 1);
+        raf.close();
+        assertNull(CatalogSnapshot.open(file));
+    }
+
+    @Test
+    public void open_damagedFile_fails() throws Exception {
+        File file = tempFolder.newFile("catalog.snapshot");
+        CatalogSnapshot.write(file, catalog(50), "a");
+        long length = file.length();
+
+        // Un byte cambiado dentro de una fila
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(length - 10);
+        int b = raf.read();
+        raf.seek(length - 10);
+        raf.write(b ^ 0xFF);
+        raf.close();
+        assertOpenFails(file);
+
+        // Archivo cortado
+        CatalogSnapshot.write(file, catalog(50), "a");
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(length - 30);
+        raf.close();
+        assertOpenFails(file);
+    }
+
+    private static void assertOpenFails(File file) {
+        try {
+            CatalogSnapshot.open(file);
+            fail("Debería rechazar un snapshot dañado");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+}
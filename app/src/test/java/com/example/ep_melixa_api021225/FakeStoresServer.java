@@ -0,0 +1,344 @@
+package com.example.ep_melixa_api021225;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Servidor local que imita /api/products de FakeStores para las pruebas
+ * (y sirve imágenes en /images/ para ImageLoader)
+ *
+ * También lo usa el módulo :benchmark (StandInServer, LoadGenerator) para
+ * medir el cliente con latencia, tamaño de catálogo y tasa de errores
+ * controlados.
+ */
+public class FakeStoresServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, JSONObject> products = new LinkedHashMap<>();
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private final AtomicInteger gzipResponseCount = new AtomicInteger();
+    private final AtomicInteger gzipRequestCount = new AtomicInteger();
+    private final AtomicInteger imageRequestCount = new AtomicInteger();
+    private int nextId = 1;
+    private int version = 1;    // cambia con cada mutación, se publica como ETag
+
+    // Catálogo serializado de la versión catalogVersion (se arma una vez por versión)
+    private byte[] catalogJson;
+    private byte[] catalogGzip;
+    private int catalogVersion;
+
+    // Fallas inyectadas: las próximas N peticiones responden failStatus o cortan la conexión
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failStatus;
+    // Además, una fracción errorRate de las peticiones responde errorStatus
+    private volatile double errorRate;
+    private volatile int errorStatus;
+    // Demora de cada respuesta: delayMillis + azar entre 0 y jitterMillis
+    private volatile long delayMillis;
+    private volatile long jitterMillis;
+
+    public FakeStoresServer() throws IOException {
+        this("127.0.0.1", 0);
+    }
+
+    /**
+     * @param port puerto fijo, o 0 para uno libre
+     */
+    public FakeStoresServer(String host, int port) throws IOException {
+        // Sin esto el HttpServer del JDK suma ~40 ms por respuesta (Nagle + ACK demorado)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/api/products", new ProductsHandler());
+        server.createContext("/images/", new ImagesHandler());
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+    }
+
+    /**
+     * URL de una imagen servida por este servidor
+     */
+    public String getImageUrl(String name) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/images/" + name;
+    }
+
+    /**
+     * Agrega N productos sintéticos al catálogo
+     */
+    public synchronized void seed(int count) {
+        for (int i = 0; i < count; i++) {
+            JSONObject json = new JSONObject();
+            String id = "p" + nextId++;
+            json.put("id", id);
+            json.put("title", "Producto " + id);
+            json.put("price", 10.0 + i);
+            json.put("description", "Descripción del producto " + id);
+            json.put("category", i % 2 == 0 ? "electronics" : "jewelery");
+            json.put("image", "https://example.com/" + id + ".png");
+            json.put("rating", new JSONObject().put("rate", 4.5).put("count", 10 + i));
+            products.put(id, json);
+        }
+        catalogJson = null;
+    }
+
+    /**
+     * Cantidad de sockets distintos que abrió el cliente
+     */
+    public int getConnectionCount() {
+        return clientPorts.size();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public int getImageRequestCount() {
+        return imageRequestCount.get();
+    }
+
+    public int getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Respuestas enviadas comprimidas (el cliente mandó Accept-Encoding: gzip)
+     */
+    public int getGzipResponseCount() {
+        return gzipResponseCount.get();
+    }
+
+    /**
+     * Peticiones recibidas con Content-Encoding: gzip
+     */
+    public int getGzipRequestCount() {
+        return gzipRequestCount.get();
+    }
+
+    // ========== FALLAS ==========
+
+    /**
+     * Las próximas count peticiones responden status sin tocar el catálogo
+     */
+    public void failNext(int count, int status) {
+        failStatus = status;
+        failuresLeft.set(count);
+    }
+
+    /**
+     * Las próximas count peticiones cierran la conexión sin responder
+     */
+    public void dropNext(int count) {
+        failNext(count, 0);
+    }
+
+    /**
+     * Demora antes de cada respuesta (para provocar timeouts)
+     */
+    public void setDelay(long millis) {
+        setLatency(millis, 0);
+    }
+
+    /**
+     * Demora de cada respuesta entre millis y millis + jitter
+     */
+    public void setLatency(long millis, long jitter) {
+        delayMillis = millis;
+        jitterMillis = jitter;
+    }
+
+    /**
+     * Fracción (0..1) de peticiones que responden status, al azar
+     */
+    public void setErrorRate(double rate, int status) {
+        errorStatus = status;
+        errorRate = rate;
+    }
+
+    private synchronized String currentEtag() {
+        return "\"v" + version + "\"";
+    }
+
+    /**
+     * Catálogo serializado (y comprimido) una vez por versión: con miles de
+     * productos armarlo en cada GET haría del servidor el cuello de botella
+     */
+    private synchronized byte[] catalogBody(boolean gzip) throws IOException {
+        if (catalogJson == null || catalogVersion != version) {
+            catalogJson = new JSONArray(products.values()).toString().getBytes(StandardCharsets.UTF_8);
+            catalogGzip = null;
+            catalogVersion = version;
+        }
+        if (gzip && catalogGzip == null) {
+            catalogGzip = ApiClient.gzip(catalogJson);
+        }
+        return gzip ? catalogGzip : catalogJson;
+    }
+
+    private synchronized String handle(String method, String id, String body) {
+        if (id == null) {
+            JSONObject json = new JSONObject(body);
+            version++;
+            String newId = "p" + nextId++;
+            json.put("id", newId);
+            products.put(newId, json);
+            return json.toString();
+        }
+
+        if (!products.containsKey(id)) {
+            return null;
+        }
+        if ("PUT".equals(method)) {
+            JSONObject json = new JSONObject(body);
+            version++;
+            json.put("id", id);
+            products.put(id, json);
+            return json.toString();
+        }
+        if ("DELETE".equals(method)) {
+            products.remove(id);
+            version++;
+            return "";
+        }
+        return products.get(id).toString();
+    }
+
+    private void sleepDelay() {
+        long delay = delayMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Bytes fijos por nombre (cabecera PNG y relleno), con la misma demora que el resto
+     */
+    private class ImagesHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            imageRequestCount.incrementAndGet();
+            sleepDelay();
+            byte[] bytes = new byte[4096];
+            byte[] header = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+            System.arraycopy(header, 0, bytes, 0, header.length);
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("ETag", "\"" + exchange.getRequestURI().getPath().hashCode() + "\"");
+            exchange.sendResponseHeaders(200, bytes.length);
+            OutputStream os = exchange.getResponseBody();
+            os.write(bytes);
+            os.close();
+        }
+    }
+
+    private class ProductsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requestCount.incrementAndGet();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+
+            String path = exchange.getRequestURI().getPath();
+            String id = path.length() > "/api/products/".length()
+                    ? path.substring("/api/products/".length()) : null;
+            String method = exchange.getRequestMethod();
+
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                gzipRequestCount.incrementAndGet();
+                in = new GZIPInputStream(in);
+            }
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            in.close();
+
+            sleepDelay();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(errorStatus, -1);
+                exchange.close();
+                return;
+            }
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                if (failStatus == 0) {
+                    // Sin respuesta: el cliente ve la conexión cerrada
+                    exchange.close();
+                } else {
+                    exchange.sendResponseHeaders(failStatus, -1);
+                    exchange.close();
+                }
+                return;
+            }
+
+            // GET condicional del catálogo
+            String etag = currentEtag();
+            if (id == null && "GET".equals(method)
+                    && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            int code;
+            byte[] bytes;
+            if (id == null && "GET".equals(method)) {
+                code = 200;
+                bytes = catalogBody(gzip);
+            } else {
+                String response = FakeStoresServer.this.handle(method, id, body);
+                code = response == null ? 404 : ("POST".equals(method) ? 201 : 200);
+                bytes = (response == null ? "{}" : response).getBytes(StandardCharsets.UTF_8);
+                if (gzip) {
+                    bytes = ApiClient.gzip(bytes);
+                }
+            }
+            if (gzip) {
+                gzipResponseCount.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (id == null && "GET".equals(method)) {
+                exchange.getResponseHeaders().set("ETag", etag);
+            }
+            exchange.sendResponseHeaders(code, bytes.length);
+            OutputStream os = exchange.getResponseBody();
+            os.write(bytes);
+            os.close();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del tamaño de decodificación de ImageLoader
+ * (cachés, agrupación y cancelación: ImagePipelineTest)
+ */
+public class ImageLoaderTest {
+
+    @Test
+    public void calculateInSampleSize_keepsImageAtLeastTargetSize() {
+        assertEquals(1, ImageLoader.calculateInSampleSize(100, 100, 200, 200));
+        assertEquals(1, ImageLoader.calculateInSampleSize(300, 300, 200, 200));
+        assertEquals(2, ImageLoader.calculateInSampleSize(400, 400, 200, 200));
+        assertEquals(8, ImageLoader.calculateInSampleSize(1000, 800, 100, 100));
+        // Manda el lado que llega primero al destino
+        assertEquals(2, ImageLoader.calculateInSampleSize(400, 200, 100, 100));
+    }
+}
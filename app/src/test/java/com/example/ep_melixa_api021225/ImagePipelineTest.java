@@ -0,0 +1,184 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de ImagePipeline contra el servidor local
+ *
+ * La "imagen" es un texto con la cantidad de bytes y el tamaño pedido, y
+ * cada destino un AtomicReference. El hilo de la prueba hace de hilo
+ * principal: las entregas quedan en una cola y se ejecutan acá, como las
+ * ejecutaría el Looper.
+ */
+public class ImagePipelineTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FakeStoresServer server;
+    private ImagePipeline<String, AtomicReference<String>> pipeline;
+    private final BlockingQueue<Runnable> mainThread = new LinkedBlockingQueue<>();
+    private final Map<String, String> memory = new HashMap<>();
+    private final AtomicInteger decodes = new AtomicInteger();
+    // Decodificaciones que van a fallar con una excepción no verificada
+    private final AtomicInteger failingDecodes = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeStoresServer();
+        server.start();
+        pipeline = new ImagePipeline<>(tempFolder.newFolder("images"), 1024 * 1024,
+                new ImagePipeline.MemoryCache<String>() {
+                    @Override
+                    public String get(String key) {
+                        return memory.get(key);
+                    }
+
+                    @Override
+                    public void put(String key, String image) {
+                        memory.put(key, image);
+                    }
+
+                    @Override
+                    public void clear() {
+                        memory.clear();
+                    }
+                },
+                (entry, width, height) -> {
+                    decodes.incrementAndGet();
+                    if (failingDecodes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                        throw new IllegalStateException("Imagen dañada");
+                    }
+                    try (InputStream in = entry.openBody()) {
+                        return in.readAllBytes().length + " bytes @" + width + "x" + height;
+                    }
+                },
+                AtomicReference::set,
+                mainThread::add);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void sameImageForTwoTargets_downloadsAndDecodesOnce() throws Exception {
+        String url = server.getImageUrl("a.png");
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+
+        assertFalse(pipeline.load(url, 100, 100, first));
+        assertFalse(pipeline.load(url, 100, 100, second));
+        assertEquals(1, pipeline.getInFlightCount());
+
+        awaitLoaded(first);
+        assertEquals("4096 bytes @100x100", first.get());
+        assertEquals(first.get(), second.get());
+        assertFalse(pipeline.isLoading(second));
+        assertEquals(0, pipeline.getInFlightCount());
+        assertEquals(1, server.getImageRequestCount());
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    public void memoryAndDiskCaches_avoidDownloadAndDecode() throws Exception {
+        String url = server.getImageUrl("b.png");
+        AtomicReference<String> target = new AtomicReference<>();
+        pipeline.load(url, 100, 100, target);
+        awaitLoaded(target);
+
+        // Mismo tamaño: sale de memoria, en el momento
+        AtomicReference<String> again = new AtomicReference<>();
+        assertTrue(pipeline.load(url, 100, 100, again));
+        assertEquals(target.get(), again.get());
+        assertEquals(1, decodes.get());
+
+        // Otro tamaño: se decodifica de nuevo, pero desde disco
+        AtomicReference<String> smaller = new AtomicReference<>();
+        assertFalse(pipeline.load(url, 50, 50, smaller));
+        awaitLoaded(smaller);
+        assertEquals("4096 bytes @50x50", smaller.get());
+        assertEquals(2, decodes.get());
+        assertEquals(1, server.getImageRequestCount());
+
+        // Sin memoria (trimMemory) vuelve a decodificar
+        pipeline.trimMemory();
+        assertFalse(pipeline.load(url, 100, 100, again));
+        awaitLoaded(again);
+        assertEquals(3, decodes.get());
+    }
+
+    @Test
+    public void cancellingEveryTarget_dropsTheDownload() throws Exception {
+        server.setDelay(200);
+        String url = server.getImageUrl("c.png");
+        AtomicReference<String> first = new AtomicReference<>();
+        AtomicReference<String> second = new AtomicReference<>();
+        pipeline.load(url, 100, 100, first);
+        pipeline.load(url, 100, 100, second);
+
+        // Mientras alguien la espera, la descarga sigue
+        pipeline.cancel(first);
+        assertFalse(pipeline.isLoading(first));
+        assertTrue(pipeline.isLoading(second));
+        assertEquals(1, pipeline.getInFlightCount());
+
+        pipeline.cancel(second);
+        assertEquals(0, pipeline.getInFlightCount());
+
+        // Un destino nuevo no se suma a la descarga cancelada
+        AtomicReference<String> third = new AtomicReference<>();
+        pipeline.load(url, 100, 100, third);
+        assertEquals(1, pipeline.getInFlightCount());
+        awaitLoaded(third);
+        assertNotNull(third.get());
+        assertNull(first.get());
+        assertNull(second.get());
+        assertEquals(0, pipeline.getInFlightCount());
+    }
+
+    @Test
+    public void failingDecode_releasesTheRequest() throws Exception {
+        failingDecodes.set(1);
+        String url = server.getImageUrl("d.png");
+        AtomicReference<String> target = new AtomicReference<>();
+        pipeline.load(url, 100, 100, target);
+
+        awaitLoaded(target);
+        assertNull(target.get());
+        assertEquals(0, pipeline.getInFlightCount());
+
+        // El próximo pedido no queda colgado de la petición fallida
+        pipeline.load(url, 100, 100, target);
+        awaitLoaded(target);
+        assertEquals("4096 bytes @100x100", target.get());
+        assertEquals(1, server.getImageRequestCount());
+    }
+
+    /**
+     * Ejecuta las entregas hasta que el destino deja de esperar
+     */
+    private void awaitLoaded(AtomicReference<String> target) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.isLoading(target)) {
+            Runnable delivery = mainThread.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            assertNotNull("La imagen no llegó", delivery);
+            delivery.run();
+        }
+    }
+}
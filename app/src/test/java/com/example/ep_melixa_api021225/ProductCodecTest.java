@@ -0,0 +1,98 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del formato binario de productos
+ */
+public class ProductCodecTest {
+
+    private static Product product(int i) {
+        Product product = new Product("id" + i, "Producto " + i, "Descripción ñandú " + i,
+                i * 1.25, i % 2 == 0 ? "electronics" : "jewelery", "https://img/" + i + ".png");
+        product.setRating((i % 50) / 10.0);
+        product.setRatingCount(i * 37);
+        product.setAvailability(i % 3 == 0 ? "OutOfStock" : "InStock");
+        return product;
+    }
+
+    private static void assertSameProduct(Product expected, Product actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getImage(), actual.getImage());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getAvailability(), actual.getAvailability());
+        assertEquals(expected.getPrice(), actual.getPrice(), 0);
+        assertEquals(expected.getRating(), actual.getRating(), 0);
+        assertEquals(expected.getRatingCount(), actual.getRatingCount());
+    }
+
+    @Test
+    public void roundTrip_keepsEveryField() throws Exception {
+        Product custom = new Product(null, "Sin ID", null, 0, "hogar y jardín", null);
+        List<Product> products = Arrays.asList(product(1), product(2), product(300), custom, custom);
+
+        List<Product> decoded = ProductCodec.decode(ProductCodec.encode(products));
+        assertEquals(products.size(), decoded.size());
+        for (int i = 0; i < products.size(); i++) {
+            assertSameProduct(products.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void roundTrip_keepsNegativePrice() throws Exception {
+        // Los parsers aceptan lo que mande la API, el codec debe devolverlo igual
+        Product refund = new Product(new JSONObject("{\"id\":\"r1\",\"title\":\"Reintegro\",\"price\":-5.5}"));
+        List<Product> decoded = ProductCodec.decode(ProductCodec.encode(Collections.singletonList(refund)));
+
+        assertEquals(-5.5, decoded.get(0).getPrice(), 0);
+    }
+
+    @Test
+    public void roundTrip_keepsSummaryFlag() throws Exception {
+        Product summary = product(4);
+        summary.setSummary(true);
+        List<Product> decoded = ProductCodec.decode(ProductCodec.encode(Arrays.asList(summary, product(5))));
+
+        assertTrue(decoded.get(0).isSummary());
+        assertFalse(decoded.get(1).isSummary());
+    }
+
+    @Test
+    public void encode_isMuchSmallerThanJson() throws Exception {
+        List<Product> products = new ArrayList<>();
+        JSONArray json = new JSONArray();
+        for (int i = 0; i < 2000; i++) {
+            products.add(product(i));
+            json.put(products.get(i).toJSON());
+        }
+        int binary = ProductCodec.encode(products).length;
+        int text = json.toString().getBytes(StandardCharsets.UTF_8).length;
+        assertTrue("binario " + binary + " vs JSON " + text, binary * 3 < text * 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_unknownVersion_fails() throws Exception {
+        byte[] data = ProductCodec.encode(Arrays.asList(product(1)));
+        data[0] = (byte) (ProductCodec.VERSION + 1);
+        ProductCodec.decode(data);
+    }
+
+    @Test(expected = EOFException.class)
+    public void decode_truncated_fails() throws Exception {
+        byte[] data = ProductCodec.encode(Arrays.asList(product(1)));
+        ProductCodec.decode(Arrays.copyOf(data, data.length - 3));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Test;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de los textos precalculados de las filas
+ */
+public class ProductDisplayCacheTest {
+
+    private static Product product(String id, double price) {
+        Product product = new Product(id, "Producto " + id, "Desc", price, "electronics", "");
+        product.setRating(4.25);
+        product.setRatingCount(120);
+        return product;
+    }
+
+    @Test
+    public void get_formatsLikeStringFormat() {
+        ProductDisplayCache cache = new ProductDisplayCache(16, Locale.US);
+        ProductDisplayCache.Entry entry = cache.get(product("a", 1234.005));
+        assertEquals("$" + String.format(Locale.US, "%.2f", 1234.005), entry.getPrice());
+        assertEquals("En Stock • ★4.3 (120)", entry.getStock());
+        assertTrue(entry.isInStock());
+
+        assertEquals("$0.05", cache.get(product("b", 0.05)).getPrice());
+        assertEquals("$7,50", new ProductDisplayCache(16, new Locale("es", "ES"))
+                .get(product("c", 7.5)).getPrice());
+    }
+
+    @Test
+    public void get_truncatesLongDescriptions() {
+        ProductDisplayCache cache = new ProductDisplayCache(16, Locale.US);
+        Product product = product("a", 1);
+        product.setDescription(new String(new char[120]).replace('\0', 'x'));
+        String description = cache.get(product).getDescription();
+        assertEquals(ProductDisplayCache.DESCRIPTION_MAX_LENGTH, description.length());
+        assertTrue(description.endsWith("..."));
+    }
+
+    @Test
+    public void get_reformatsOnlyWhenVersionChanges() {
+        ProductDisplayCache cache = new ProductDisplayCache(16, Locale.US);
+        Product product = product("a", 10);
+        String price = cache.get(product).getPrice();
+        assertSame(price, cache.get(new Product(product)).getPrice());
+
+        product.setPrice(12);
+        assertEquals("$12.00", cache.get(product).getPrice());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void rebind_allocatesNothing() {
+        ProductDisplayCache cache = new ProductDisplayCache(512, Locale.US);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            products.add(product("p" + i, i));
+        }
+        // Primeras pasadas: formatea, guarda y deja el código ya compilado
+        rebindAll(cache, products, 100);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long overhead = threads.getThreadAllocatedBytes(thread);
+        overhead = threads.getThreadAllocatedBytes(thread) - overhead;
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        int rebinds = rebindAll(cache, products, 100);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+        // Menos de un byte por bind: ninguna asignación en el camino del bind
+        assertEquals("bytes por bind", 0, allocated / rebinds);
+    }
+
+    private static int rebindAll(ProductDisplayCache cache, List<Product> products, int rounds) {
+        int count = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < products.size(); i++) {
+                cache.get(products.get(i));
+                count++;
+            }
+        }
+        return count;
+    }
+}
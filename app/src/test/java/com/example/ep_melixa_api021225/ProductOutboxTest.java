@@ -0,0 +1,183 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la cola persistente contra el servidor local
+ */
+public class ProductOutboxTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FakeStoresServer server;
+    private ApiClient client;
+    private ProductRepository repository;
+    private File file;
+    private final List<Product> applied = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeStoresServer();
+        server.seed(3);
+        server.start();
+        client = new ApiClient(server.getBaseUrl());
+        repository = new ProductRepository(client, Runnable::run);
+        file = new File(tempFolder.getRoot(), "outbox.json");
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop();
+    }
+
+    private ProductOutbox newOutbox(ProductRepository repository) {
+        ProductOutbox outbox = new ProductOutbox(repository, file, Runnable::run, 10, 1000);
+        outbox.setListener(new ProductOutbox.Listener() {
+            @Override
+            public void onApplied(ProductOutbox.Mutation mutation, Product result) {
+                applied.add(result);
+            }
+
+            @Override
+            public void onFailed(ProductOutbox.Mutation mutation, Exception error) {
+                fail("No debería fallar: " + error);
+            }
+
+            @Override
+            public void onPendingChanged(int pending) {
+            }
+        });
+        return outbox;
+    }
+
+    @Test
+    public void createThenDelete_neverReachesServer() throws Exception {
+        ProductOutbox outbox = newOutbox(repository);
+        Product local = outbox.create(new Product("Nuevo", "Desc", 10, "electronics"));
+        assertTrue(ProductOutbox.isLocalId(local.getId()));
+        local.setPrice(12);
+        outbox.update(local);
+        outbox.delete(local);
+
+        assertEquals(0, outbox.getPendingCount());
+        assertTrue(outbox.flush());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void createThenUpdate_sendsSinglePostWithLatestData() throws Exception {
+        ProductOutbox outbox = newOutbox(repository);
+        Product local = outbox.create(new Product("Nuevo", "Desc", 10, "electronics"));
+        local.setTitle("Renombrado");
+        outbox.update(local);
+
+        assertTrue(outbox.flush());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, applied.size());
+        assertEquals("Renombrado", applied.get(0).getTitle());
+        assertFalse(ProductOutbox.isLocalId(applied.get(0).getId()));
+    }
+
+    @Test
+    public void updatesThenDelete_sendOnlyDelete() throws Exception {
+        ProductOutbox outbox = newOutbox(repository);
+        Product product = repository.getProducts().get(0);
+        for (int i = 1; i <= 3; i++) {
+            product.setPrice(i);
+            outbox.update(product);
+        }
+        outbox.delete(product);
+        assertEquals(1, outbox.getPendingCount());
+
+        assertTrue(outbox.flush());
+        assertEquals(2, repository.getProducts().size());
+        assertEquals(3, server.getRequestCount());     // GET, DELETE, GET
+    }
+
+    @Test
+    public void pendingMutations_surviveRestartAndRetry() throws Exception {
+        FakeStoresServer down = new FakeStoresServer();
+        down.start();
+        down.stop();
+        ApiClient offline = new ApiClient(down.getBaseUrl());
+
+        Product product = repository.getProducts().get(1);
+        product.setTitle("Editado sin red");
+        ProductOutbox outbox = newOutbox(new ProductRepository(offline, Runnable::run));
+        outbox.update(product);
+        assertFalse(outbox.flush());
+        assertEquals(1, outbox.getPending().get(0).getAttempts());
+        offline.shutdown();
+        outbox.awaitSaved();
+
+        // "Reinicio": una cola nueva lee el archivo y termina el envío
+        ProductOutbox restored = newOutbox(repository);
+        assertEquals(1, restored.getPendingCount());
+        assertTrue(restored.flush());
+        assertEquals("Editado sin red", repository.getProducts().get(1).getTitle());
+        restored.awaitSaved();
+        assertEquals(0, newOutbox(repository).getPendingCount());
+    }
+
+    @Test
+    public void createCutAfterSending_failsInsteadOfRetrying() throws Exception {
+        final List<Exception> failures = new ArrayList<>();
+        ProductOutbox outbox = new ProductOutbox(repository, file, Runnable::run, 10, 1000);
+        outbox.setListener(new ProductOutbox.Listener() {
+            @Override
+            public void onApplied(ProductOutbox.Mutation mutation, Product result) {
+                fail("No debería aplicarse");
+            }
+
+            @Override
+            public void onFailed(ProductOutbox.Mutation mutation, Exception error) {
+                failures.add(error);
+            }
+
+            @Override
+            public void onPendingChanged(int pending) {
+            }
+        });
+        server.dropNext(1);
+        outbox.create(new Product("Nuevo", "Desc", 10, "electronics"));
+
+        // El POST pudo haber llegado: no se vuelve a enviar
+        assertTrue(outbox.flush());
+        assertEquals(1, failures.size());
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void canRetry_createOnlyWhenNotSent() {
+        ProductOutbox.Mutation.Type create = ProductOutbox.Mutation.Type.CREATE;
+        ProductOutbox.Mutation.Type update = ProductOutbox.Mutation.Type.UPDATE;
+        assertTrue(ProductOutbox.canRetry(create, new java.net.ConnectException()));
+        assertTrue(ProductOutbox.canRetry(create, new CircuitBreaker.OpenException(100)));
+        assertTrue(ProductOutbox.canRetry(create, new ApiException(429, "")));
+        assertFalse(ProductOutbox.canRetry(create, new java.net.SocketTimeoutException()));
+        assertFalse(ProductOutbox.canRetry(create, new ApiException(503, "")));
+        assertTrue(ProductOutbox.canRetry(update, new ApiException(503, "")));
+    }
+
+    @Test
+    public void backoff_growsExponentiallyUpToMax() {
+        ProductOutbox outbox = newOutbox(repository);
+        assertEquals(10, outbox.backoff(1));
+        assertEquals(40, outbox.backoff(3));
+        assertEquals(1000, outbox.backoff(30));
+        assertFalse(ProductOutbox.isRetryable(new ApiException(400, "")));
+        assertTrue(ProductOutbox.isRetryable(new ApiException(503, "")));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del paginador con un catálogo sintético de 1000 productos
+ */
+public class ProductPagerTest {
+
+    private static final int TOTAL = 1000;
+    private static final int PAGE_SIZE = 50;
+
+    private final List<Integer> requestedPages = new ArrayList<>();
+    private ProductPager pager;
+
+    @Before
+    public void setUp() {
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        pager = new ProductPager(new ProductPager.PageSource() {
+            @Override
+            public List<Product> loadPage(int page, int pageSize) {
+                requestedPages.add(page);
+                List<Product> items = new ArrayList<>();
+                for (int i = page * pageSize; i < Math.min(TOTAL, (page + 1) * pageSize); i++) {
+                    items.add(new Product("p" + i, "Producto " + i, "", i, "electronics", ""));
+                }
+                return items;
+            }
+        }, direct, direct, PAGE_SIZE, 10, 3);
+    }
+
+    @Test
+    public void start_loadsFirstPageOnly() {
+        pager.start();
+        assertEquals(PAGE_SIZE, pager.getCount());
+        assertEquals("p0", pager.peek(0).getId());
+        assertEquals(1, requestedPages.size());
+    }
+
+    @Test
+    public void get_nearEndOfPage_prefetchesNextPage() {
+        pager.start();
+        pager.get(45);
+        assertTrue(requestedPages.contains(1));
+        assertEquals(2 * PAGE_SIZE, pager.getCount());
+    }
+
+    @Test
+    public void scrolling_keepsBoundedWindowAndFindsLastPage() {
+        pager.start();
+        for (int position = 0; position < pager.getCount(); position++) {
+            assertNotNull(pager.get(position));
+            assertTrue(pager.getLoadedPageCount() <= 3);
+        }
+        assertEquals(TOTAL, pager.getCount());
+        assertNull(pager.peek(0));
+    }
+
+    @Test
+    public void trimMemory_keepsOnlyNeighbourPages() {
+        pager.start();
+        pager.get(60);
+        pager.get(110);
+        pager.trimMemory();
+        assertNotNull(pager.peek(110));
+        assertTrue(pager.getLoadedPageCount() <= 3);
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del repositorio contra el servidor local
+ */
+public class ProductRepositoryTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FakeStoresServer server;
+    private ApiClient client;
+    private ProductRepository repository;
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeStoresServer();
+        server.seed(3);
+        server.start();
+        client = new ApiClient(server.getBaseUrl());
+        repository = new ProductRepository(client, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void crud_roundTrip() throws Exception {
+        List<Product> products = repository.getProducts();
+        assertEquals(3, products.size());
+        assertEquals("electronics", products.get(0).getCategory());
+
+        Product created = repository.createProduct(new Product("Nuevo", "Desc", 12.5, "jewelery"));
+        assertFalse(created.getId().isEmpty());
+        assertEquals("Nuevo", created.getTitle());
+
+        created.setPrice(20.0);
+        Product updated = repository.updateProduct(created);
+        assertEquals(20.0, updated.getPrice(), 0.001);
+
+        repository.deleteProduct(created.getId());
+        assertEquals(3, repository.getProducts().size());
+    }
+
+    @Test
+    public void requests_reuseKeepAliveConnection() throws Exception {
+        repository.getProducts();
+        repository.createProduct(new Product("Nuevo", "Desc", 1.0, "electronics"));
+        repository.getProducts();
+
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void conditionalGet_servesNotModifiedFromDiskCache() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(tempFolder.newFolder("http"), 1024 * 1024);
+        ProductRepository cached = new ProductRepository(client, Runnable::run, cache);
+
+        assertEquals(3, cached.getProducts().size());
+        // Segunda visita: 304 y el catálogo se lee desde disco
+        assertEquals(3, cached.getProducts().size());
+        assertEquals(1, server.getNotModifiedCount());
+
+        // Si la UI ya tiene esa versión no se vuelve a parsear
+        assertEquals(ProductRepository.NOT_MODIFIED, cached.fetchProducts(new ProductStreamParser.Listener() {
+            @Override
+            public void onProduct(Product product) {
+                fail("No debería parsear un catálogo sin cambios");
+            }
+        }, true));
+
+        // Una mutación cambia el ETag y obliga a descargar de nuevo
+        cached.createProduct(new Product("Nuevo", "Desc", 1.0, "electronics"));
+        assertEquals(4, cached.getProducts().size());
+        assertEquals(2, server.getNotModifiedCount());
+    }
+
+    @Test
+    public void listRows_areSummaries_detailIsFetchedOnceById() throws Exception {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 2000) {
+            description.append("Descripción larga del producto. ");
+        }
+        Product created = repository.createProduct(
+                new Product("Largo", description.toString(), 5.0, "electronics"));
+
+        Product row = null;
+        for (Product product : repository.getProducts()) {
+            if (product.getId().equals(created.getId())) {
+                row = product;
+            } else {
+                assertFalse(product.isSummary());
+            }
+        }
+        assertTrue(row.isSummary());
+        assertEquals(ProductRepository.LIST_DESCRIPTION_LENGTH, row.getDescription().length());
+
+        // El completo se pide por ID una sola vez
+        int requests = server.getRequestCount();
+        Product full = repository.getProductDetail(row);
+        assertFalse(full.isSummary());
+        assertEquals(description.toString(), full.getDescription());
+        assertEquals("Largo", full.getTitle());
+        repository.getProductDetail(row);
+        assertEquals(requests + 1, server.getRequestCount());
+    }
+
+    @Test(expected = ApiException.class)
+    public void delete_unknownProduct_throwsApiException() throws Exception {
+        repository.deleteProduct("no-existe");
+    }
+
+    @Test
+    public void concurrentLoads_shareOneRequestAndParse() throws Exception {
+        TaskScheduler queue = gatedScheduler();
+        ProductRepository gated = new ProductRepository(gatedClient(queue), Runnable::run);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+
+        gated.loadProducts(false, first);
+        gated.loadProducts(false, second);
+        assertEquals(1, queue.getQueuedCount());
+
+        gate.countDown();
+        first.await();
+        second.await();
+        assertEquals(1, server.getRequestCount());
+        assertEquals(Collections.singletonList("batch 3 first"), second.events.subList(0, 1));
+        assertEquals(first.events, second.events);
+        queue.shutdown();
+    }
+
+    @Test
+    public void loadAfterMutation_supersedesStaleLoad() throws Exception {
+        TaskScheduler queue = gatedScheduler();
+        ProductRepository gated = new ProductRepository(gatedClient(queue), Runnable::run);
+        RecordingCallback stale = new RecordingCallback();
+        RecordingCallback fresh = new RecordingCallback();
+
+        gated.loadProducts(false, stale);
+        gated.createProduct(new Product("Nuevo", "Desc", 1.0, "electronics"));
+        gated.loadProducts(false, fresh);
+
+        gate.countDown();
+        stale.await();
+        fresh.await();
+        // Los dos reciben solo el catálogo nuevo, una vez
+        assertEquals(Arrays.asList("batch 4 first", "success 4"), stale.events);
+        assertEquals(stale.events, fresh.events);
+        queue.shutdown();
+    }
+
+    @Test
+    public void cancelledScope_abandonsLoadNobodyElseWaitsFor() throws Exception {
+        TaskScheduler queue = gatedScheduler();
+        ProductRepository gated = new ProductRepository(gatedClient(queue), Runnable::run);
+        TaskScope closed = new TaskScope();
+        TaskScope open = new TaskScope();
+        RecordingCallback dropped = new RecordingCallback();
+        RecordingCallback kept = new RecordingCallback();
+
+        // Dos pantallas comparten la descarga; cerrar una no la corta
+        gated.loadProducts(closed, false, dropped);
+        gated.loadProducts(open, false, kept);
+        closed.cancel();
+        gate.countDown();
+        kept.await();
+        assertEquals(Arrays.asList("batch 3 first", "success 3"), kept.events);
+        assertTrue(dropped.events.isEmpty());
+        assertEquals(1, server.getRequestCount());
+
+        // Sin nadie esperándola, la descarga ni siquiera se pide
+        final CountDownLatch busy = new CountDownLatch(1);
+        queue.submit(TaskScheduler.Priority.USER, null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    busy.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        TaskScope screen = new TaskScope();
+        RecordingCallback abandoned = new RecordingCallback();
+        gated.loadProducts(screen, false, abandoned);
+        screen.cancel();
+        gated.loadProducts(screen, false, abandoned);
+        busy.countDown();
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(abandoned.events.isEmpty());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void completedLoad_keepsCatalogUntilNextMutation() throws Exception {
+        RecordingCallback warmup = new RecordingCallback();
+        assertNull(repository.getLastCatalog());
+        repository.loadProducts(false, warmup);
+        warmup.await();
+        assertEquals(3, repository.getLastCatalog().size());
+
+        repository.createProduct(new Product("Nuevo", "Desc", 1.0, "electronics"));
+        assertNull(repository.getLastCatalog());
+    }
+
+    @Test
+    public void reload_revertsRejectedChangeWhenServerAnswersNotModified() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(tempFolder.newFolder("http"), 1024 * 1024);
+        ProductRepository cached = new ProductRepository(client, Runnable::run, cache, null);
+        ProductStore store = new ProductStore();
+        StoreCallback first = new StoreCallback(store);
+        cached.loadProducts(false, first);
+        first.await();
+        String original = store.get(0).getTitle();
+
+        // Cambio local que el servidor rechaza
+        Product edited = new Product(store.get(0));
+        edited.setTitle("Editado");
+        store.upsert(edited);
+        ProductOutbox outbox = new ProductOutbox(cached, new File(tempFolder.getRoot(), "outbox.json"),
+                Runnable::run, 10, 1000);
+        server.failNext(1, 400);
+        outbox.update(edited);
+        assertTrue(outbox.flush());
+        assertEquals(0, outbox.getPendingCount());
+
+        // Revalidar no alcanza: el catálogo del servidor no cambió
+        StoreCallback revalidate = new StoreCallback(store);
+        cached.loadProducts(true, revalidate);
+        revalidate.await();
+        assertEquals(Collections.singletonList("not modified"), revalidate.events);
+        assertEquals("Editado", store.get(0).getTitle());
+
+        // reloadProducts vuelve a entregar el catálogo aunque la respuesta sea 304
+        StoreCallback reverted = new StoreCallback(store);
+        cached.reloadProducts(null, reverted);
+        reverted.await();
+        assertEquals(Arrays.asList("batch 3 first", "success 3"), reverted.events);
+        assertEquals(original, store.get(0).getTitle());
+        assertEquals(2, server.getNotModifiedCount());
+    }
+
+    @Test
+    public void notModified_readsCatalogFromSnapshot() throws Exception {
+        TaskScheduler queue = gatedScheduler();
+        gate.countDown();
+        File snapshotFile = new File(tempFolder.getRoot(), "catalog.snapshot");
+        HttpDiskCache cache = new HttpDiskCache(tempFolder.newFolder("http"), 1024 * 1024);
+        ProductRepository cached = new ProductRepository(gatedClient(queue), Runnable::run, cache, snapshotFile);
+
+        RecordingCallback first = new RecordingCallback();
+        cached.loadProducts(false, first);
+        first.await();
+        // El mismo hilo guarda el snapshot antes de la siguiente carga
+        RecordingCallback second = new RecordingCallback();
+        cached.loadProducts(false, second);
+        second.await();
+        CatalogSnapshot snapshot = cached.openSnapshot();
+        assertEquals(3, snapshot.size());
+        assertEquals("electronics", snapshot.get(0).getCategory());
+
+        // Con un 304 de la misma versión se lee el snapshot y no el JSON
+        Product marked = new Product("Desde snapshot", "Desc", 1.0, "jewelery");
+        CatalogSnapshot.write(snapshotFile, Collections.singletonList(marked), snapshot.getVersion());
+        final List<Product> products = new ArrayList<>();
+        cached.fetchProducts(new ProductStreamParser.Listener() {
+            @Override
+            public void onProduct(Product product) {
+                products.add(product);
+            }
+        }, false);
+        assertEquals(1, products.size());
+        assertEquals("Desde snapshot", products.get(0).getTitle());
+        queue.shutdown();
+    }
+
+    @Test
+    public void openSnapshot_deletesDamagedFile() throws Exception {
+        File snapshotFile = tempFolder.newFile("catalog.snapshot");
+        CatalogSnapshot.write(snapshotFile, repository.getProducts(), "a");
+        RandomAccessFile raf = new RandomAccessFile(snapshotFile, "rw");
+        raf.setLength(snapshotFile.length() - 1);
+        raf.close();
+        ProductRepository damaged = new ProductRepository(client, Runnable::run, null, snapshotFile);
+
+        assertNull(damaged.openSnapshot());
+        assertFalse(snapshotFile.exists());
+    }
+
+    @Test
+    public void syncCatalog_refreshesDiskCopyOnlyWhenChanged() throws Exception {
+        File snapshotFile = new File(tempFolder.getRoot(), "catalog.snapshot");
+        HttpDiskCache cache = new HttpDiskCache(tempFolder.newFolder("http"), 1024 * 1024);
+        ProductRepository synced = new ProductRepository(client, Runnable::run, cache, snapshotFile);
+
+        assertTrue(synced.syncCatalog());
+        assertEquals(3, synced.openSnapshot().size());
+
+        // Sin cambios: 304 y no se reescribe nada
+        long written = snapshotFile.lastModified();
+        assertFalse(synced.syncCatalog());
+        assertEquals(1, server.getNotModifiedCount());
+        assertEquals(written, snapshotFile.lastModified());
+
+        repository.createProduct(new Product("Nuevo", "Desc", 1.0, "electronics"));
+        assertTrue(synced.syncCatalog());
+        assertEquals(4, synced.openSnapshot().size());
+
+        // La UI no recibió nada: su próxima carga entrega el catálogo nuevo
+        final List<Product> products = new ArrayList<>();
+        assertEquals(4, synced.fetchProducts(new ProductStreamParser.Listener() {
+            @Override
+            public void onProduct(Product product) {
+                products.add(product);
+            }
+        }, true));
+        assertEquals("Nuevo", products.get(3).getTitle());
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Planificador de un hilo que no corre nada hasta abrir la compuerta
+     */
+    private TaskScheduler gatedScheduler() {
+        TaskScheduler queue = new TaskScheduler(1, "test");
+        queue.submit(TaskScheduler.Priority.USER, null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        return queue;
+    }
+
+    private ApiClient gatedClient(final TaskScheduler queue) {
+        return new ApiClient(server.getBaseUrl()) {
+            @Override
+            public TaskScheduler getScheduler() {
+                return queue;
+            }
+        };
+    }
+
+    /**
+     * Además de registrar, aplica los lotes a un store como ProductsViewModel
+     */
+    private static class StoreCallback extends RecordingCallback {
+        private final ProductStore store;
+
+        StoreCallback(ProductStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public void onBatch(List<Product> batch, boolean first) {
+            super.onBatch(batch, first);
+            if (first) {
+                store.replaceAll(batch);
+            } else {
+                store.addAll(batch);
+            }
+        }
+    }
+
+    private static class RecordingCallback implements ProductRepository.BatchCallback {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void onBatch(List<Product> batch, boolean first) {
+            events.add("batch " + batch.size() + (first ? " first" : ""));
+        }
+
+        @Override
+        public void onNotModified() {
+            events.add("not modified");
+            done.countDown();
+        }
+
+        @Override
+        public void onSuccess(Integer total) {
+            events.add("success " + total);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Exception error) {
+            events.add("error " + error.getMessage());
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del índice de búsqueda y filtros
+ */
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    private static Product product(String id, String title, double price, String category,
+                                   double rating, boolean inStock) {
+        Product product = new Product(id, title, "Descripción de " + title, price, category, "");
+        product.setRating(rating);
+        product.setAvailability(inStock ? "InStock" : "OutOfStock");
+        return product;
+    }
+
+    private static List<String> ids(List<Product> products) {
+        List<String> ids = new ArrayList<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    private List<String> searchText(String text) {
+        ProductSearchIndex.Query query = new ProductSearchIndex.Query();
+        query.setText(text);
+        return ids(index.search(query));
+    }
+
+    @Before
+    public void setUp() {
+        index = new ProductSearchIndex();
+        index.rebuild(Arrays.asList(
+                product("1", "Auriculares Bluetooth", 59.9, "electronics", 4.5, true),
+                product("2", "Anillo de plata", 120, "jewelery", 3.8, true),
+                product("3", "Camisa de algodón", 25, "men's clothing", 4.1, false),
+                product("4", "Cargador USB-C", 15, "electronics", 2.9, true)));
+    }
+
+    @Test
+    public void search_matchesWordPrefixesCaseAndAccentInsensitive() {
+        assertEquals(Arrays.asList("1"), searchText("auri"));
+        assertEquals(Arrays.asList("3"), searchText("ALGODON"));
+        assertEquals(Arrays.asList("4"), searchText("usb c"));
+        assertEquals(Arrays.asList("2"), searchText("descripcion pla"));
+        assertTrue(searchText("auriculares plata").isEmpty());
+    }
+
+    @Test
+    public void search_combinesFacetsAndRanges() {
+        ProductSearchIndex.Query query = new ProductSearchIndex.Query();
+        query.setCategory("electronics");
+        assertEquals(Arrays.asList("1", "4"), ids(index.search(query)));
+
+        query.setPriceRange(20, 100);
+        assertEquals(Arrays.asList("1"), ids(index.search(query)));
+
+        query = new ProductSearchIndex.Query();
+        query.setInStock(false);
+        assertEquals(Arrays.asList("3"), ids(index.search(query)));
+
+        query = new ProductSearchIndex.Query();
+        query.setMinRating(4);
+        assertEquals(Arrays.asList("1", "3"), ids(index.search(query)));
+    }
+
+    @Test
+    public void put_andRemove_updateIndexIncrementally() {
+        index.put(product("1", "Parlante portátil", 80, "electronics", 4.0, true));
+        assertTrue(searchText("auriculares").isEmpty());
+        assertEquals(Arrays.asList("1"), searchText("parlante"));
+
+        index.remove("2");
+        assertTrue(searchText("anillo").isEmpty());
+        assertEquals(3, index.size());
+
+        ProductSearchIndex.Query query = new ProductSearchIndex.Query();
+        query.setCategory("jewelery");
+        assertTrue(index.search(query).isEmpty());
+
+        index.put(product("5", "Collar de oro", 300, "jewelery", 4.9, true));
+        assertEquals(Arrays.asList("5"), ids(index.search(query)));
+    }
+
+    @Test
+    public void search_largeCatalog() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            products.add(product("p" + i, "Producto " + i + (i % 2 == 0 ? " rojo" : " azul"),
+                    i % 500, i % 3 == 0 ? "electronics" : "jewelery", (i % 50) / 10.0, i % 4 != 0));
+        }
+        index.rebuild(products);
+
+        ProductSearchIndex.Query query = new ProductSearchIndex.Query();
+        query.setText("roj");
+        query.setCategory("electronics");
+        query.setInStock(true);
+        query.setPriceRange(100, 199);
+
+        int expected = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (i % 2 == 0 && i % 3 == 0 && i % 4 != 0 && i % 500 >= 100 && i % 500 <= 199) {
+                expected++;
+            }
+        }
+        assertEquals(expected, index.search(query).size());
+    }
+}
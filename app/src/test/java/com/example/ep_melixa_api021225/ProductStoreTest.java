@@ -0,0 +1,152 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del catálogo indexado por ID
+ */
+public class ProductStoreTest {
+
+    private ProductStore store;
+    private final List<String> events = new ArrayList<>();
+
+    private static Product product(String id, double price) {
+        return new Product(id, "Producto " + id, "Desc", price, "electronics", "");
+    }
+
+    @Before
+    public void setUp() {
+        store = new ProductStore();
+        store.replaceAll(Arrays.asList(product("a", 1), product("b", 2), product("c", 3)));
+        store.setChangeListener(new ProductStore.ChangeListener() {
+            @Override
+            public void onItemRangeInserted(int position, int count) {
+                events.add("insert " + position + " " + count);
+            }
+
+            @Override
+            public void onItemChanged(int position) {
+                events.add("change " + position);
+            }
+
+            @Override
+            public void onItemRemoved(int position, Product removed) {
+                events.add("remove " + position);
+            }
+
+            @Override
+            public void onDataSetChanged() {
+                events.add("reset");
+            }
+        });
+    }
+
+    @Test
+    public void upsert_existingId_replacesInPlace() {
+        assertEquals(1, store.upsert(product("b", 20)));
+        assertEquals(20, store.findById("b").getPrice(), 0.001);
+        assertEquals(3, store.size());
+        assertEquals(Arrays.asList("change 1"), events);
+    }
+
+    @Test
+    public void upsert_newId_appends() {
+        assertEquals(3, store.upsert(product("d", 4)));
+        assertEquals(Arrays.asList("insert 3 1"), events);
+    }
+
+    @Test
+    public void remove_shiftsLaterPositions() {
+        assertEquals(0, store.remove("a"));
+        assertEquals(0, store.indexOf("b"));
+        assertEquals(1, store.indexOf("c"));
+        assertEquals(-1, store.remove("a"));
+        assertEquals(Arrays.asList("remove 0"), events);
+    }
+
+    @Test
+    public void get_reusesRowObjectUntilRowChanges() {
+        Product a = store.get(0);
+        Product b = store.get(1);
+        Product c = store.get(2);
+        assertSame(a, store.get(0));
+
+        store.upsert(product("b", 20));
+        assertSame(a, store.get(0));
+        assertNotSame(b, store.get(1));
+        assertEquals(20, store.get(1).getPrice(), 0.001);
+
+        store.remove("a");
+        assertSame(c, store.get(1));
+
+        store.replaceAll(Arrays.asList(product("c", 3)));
+        assertNotSame(c, store.get(0));
+    }
+
+    @Test
+    public void sortRows_ordersByPriceAndRating() {
+        store.upsert(product("d", 2));
+        int[] rows = new int[store.size()];
+
+        store.sortRows(ProductStore.ORDER_PRICE_ASC, rows);
+        assertArrayEquals(new int[] {0, 1, 3, 2}, rows);
+        store.sortRows(ProductStore.ORDER_PRICE_DESC, rows);
+        assertArrayEquals(new int[] {2, 1, 3, 0}, rows);
+
+        Product rated = product("b", 2);
+        rated.setRating(4.5);
+        store.upsert(rated);
+        store.sortRows(ProductStore.ORDER_RATING_DESC, rows);
+        assertEquals(1, rows[0]);
+    }
+
+    @Test
+    public void sortRows_usesExactPriceBeyondFloatPrecision() {
+        // b, c y d dan el mismo float
+        store.replaceAll(Arrays.asList(product("a", 200000.03), product("b", 200000.01),
+                product("c", 200000.02), product("d", 200000.01)));
+        int[] rows = new int[store.size()];
+
+        store.sortRows(ProductStore.ORDER_PRICE_ASC, rows);
+        assertArrayEquals(new int[] {1, 3, 2, 0}, rows);
+        store.sortRows(ProductStore.ORDER_PRICE_DESC, rows);
+        assertArrayEquals(new int[] {0, 2, 1, 3}, rows);
+    }
+
+    @Test
+    public void selectByPrice_andAverageRating() {
+        int[] rows = new int[store.size()];
+        assertEquals(2, store.selectByPrice(1.5, 3, rows));
+        assertEquals(1, rows[0]);
+        assertEquals(2, rows[1]);
+
+        Product rated = product("a", 1);
+        rated.setRating(4);
+        rated.setRatingCount(3);
+        store.upsert(rated);
+        assertEquals(4, store.getAverageRating(), 0.001);
+    }
+
+    @Test
+    public void idIndex_survivesGrowthAndRemovals() {
+        List<Product> many = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            many.add(product("id" + i, i));
+        }
+        store.replaceAll(many);
+        for (int i = 0; i < 5000; i += 2) {
+            store.remove("id" + i);
+        }
+        assertEquals(2500, store.size());
+        assertEquals(-1, store.indexOf("id100"));
+        assertEquals(50, store.indexOf("id101"));
+        assertEquals(101, store.findById("id101").getPrice(), 0.001);
+        assertEquals("electronics", store.getCategory(50));
+    }
+}
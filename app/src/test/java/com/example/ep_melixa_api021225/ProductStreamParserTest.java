@@ -0,0 +1,129 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del parser por streaming
+ */
+public class ProductStreamParserTest {
+
+    private static List<Product> parse(String json) throws IOException {
+        InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        final List<Product> products = new ArrayList<>();
+        ProductStreamParser.parse(in, new ProductStreamParser.Listener() {
+            @Override
+            public void onProduct(Product product) {
+                products.add(product);
+            }
+        });
+        return products;
+    }
+
+    @Test
+    public void parse_readsAllFields() throws Exception {
+        List<Product> products = parse("[{\"id\":\"5LyQpt\",\"title\":\"Mochila \\\"Pro\\\" \\u00f1\","
+                + "\"price\":109.95,\"description\":\"Línea 1\\nLínea 2\",\"category\":\"electronics\","
+                + "\"image\":\"https:\\/\\/img\",\"rating\":{\"rate\":3.9,\"count\":120},"
+                + "\"availability\":\"OutOfStock\"}]");
+
+        assertEquals(1, products.size());
+        Product p = products.get(0);
+        assertEquals("5LyQpt", p.getId());
+        assertEquals("Mochila \"Pro\" ñ", p.getTitle());
+        assertEquals(109.95, p.getPrice(), 0.0001);
+        assertEquals("Línea 1\nLínea 2", p.getDescription());
+        assertEquals("https://img", p.getImage());
+        assertEquals(3.9, p.getRating(), 0.0001);
+        assertEquals(120, p.getRatingCount());
+        assertFalse(p.isInStock());
+    }
+
+    @Test
+    public void parse_skipsUnknownAndNullFields() throws Exception {
+        List<Product> products = parse(" [ {\"id\": 7, \"extra\": {\"a\": [1, 2, {\"b\": null}]},"
+                + " \"title\": null, \"rating\": null, \"tags\": [\"x\", true]}, {} ] ");
+
+        assertEquals(2, products.size());
+        assertEquals("7", products.get(0).getId());
+        assertEquals("", products.get(0).getTitle());
+        assertTrue(products.get(0).isInStock());
+        assertEquals("", products.get(1).getId());
+    }
+
+    @Test
+    public void parse_largeCatalogAcrossBufferBoundaries() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"p").append(i).append("\",\"title\":\"Producto con nombre largo ")
+                    .append(i).append("\",\"price\":").append(i).append(".5}");
+        }
+        json.append(']');
+
+        List<Product> products = parse(json.toString());
+        assertEquals(2000, products.size());
+        assertEquals("p1999", products.get(1999).getId());
+        assertEquals(1999.5, products.get(1999).getPrice(), 0.0001);
+    }
+
+    @Test
+    public void parse_withDescriptionLimit_keepsSummaryOfLongDescriptions() throws Exception {
+        StringBuilder longText = new StringBuilder();
+        while (longText.length() < 9000) {
+            longText.append("Texto \\\"largo\\\" ñ ");
+        }
+        String json = "[{\"id\":\"1\",\"description\":\"" + longText + "\",\"title\":\"Largo\"},"
+                + "{\"id\":\"2\",\"description\":\"Corta\",\"title\":\"Corto\"}]";
+        final List<Product> products = new ArrayList<>();
+        ProductStreamParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 10,
+                new ProductStreamParser.Listener() {
+                    @Override
+                    public void onProduct(Product product) {
+                        products.add(product);
+                    }
+                });
+
+        assertEquals(2, products.size());
+        assertTrue(products.get(0).isSummary());
+        assertEquals("Texto \"lar", products.get(0).getDescription());
+        // Lo que sigue a la descripción recortada se lee igual
+        assertEquals("Largo", products.get(0).getTitle());
+        assertFalse(products.get(1).isSummary());
+        assertEquals("Corta", products.get(1).getDescription());
+
+        // Al editar la descripción deja de ser un resumen
+        Product copy = new Product(products.get(0));
+        assertTrue(copy.isSummary());
+        copy.setDescription("Nueva");
+        assertFalse(copy.isSummary());
+    }
+
+    @Test
+    public void parse_sharesCategoryAndAvailabilityInstances() throws Exception {
+        List<Product> products = parse("[{\"category\":\"electronics\",\"availability\":\"OutOfStock\"},"
+                + "{\"category\":\"electronics\",\"availability\":\"OutOfStock\"},"
+                + "{\"category\":\"juguetes\"},{\"category\":\"juguetes\"}]");
+
+        assertSame("electronics", products.get(0).getCategory());
+        assertSame(products.get(0).getCategory(), products.get(1).getCategory());
+        assertSame(Product.OUT_OF_STOCK, products.get(1).getAvailability());
+        assertFalse(products.get(1).isInStock());
+        // Una categoría nueva también queda compartida
+        assertSame(products.get(2).getCategory(), products.get(3).getCategory());
+    }
+
+    @Test(expected = JsonStreamReader.SyntaxException.class)
+    public void parse_invalidJson_throwsSyntaxException() throws Exception {
+        parse("[{\"id\":\"1\" \"title\":\"x\"}]");
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del diccionario de textos repetidos
+ */
+public class StringPoolTest {
+
+    @Test
+    public void intern_returnsSharedInstance() {
+        StringPool pool = new StringPool(16, "electronics");
+
+        String copy = new String("electronics");
+        assertSame("electronics", pool.intern(copy));
+        assertSame("electronics", pool.intern(new StringBuilder("electronics")));
+        assertNull(pool.intern((String) null));
+    }
+
+    @Test
+    public void intern_addsNewValuesUpToMaxSize() {
+        StringPool pool = new StringPool(20);
+
+        String garden = new String("hogar y jardín");
+        assertSame(garden, pool.intern(garden));
+        assertSame(garden, pool.intern(new StringBuilder("hogar y jardín")));
+
+        // Pasado el máximo los valores nuevos no se guardan
+        for (int i = 0; i < 50; i++) {
+            pool.intern("categoría " + i);
+        }
+        assertEquals(20, pool.size());
+        String extra = new String("otra");
+        assertSame(extra, pool.intern(extra));
+        assertNotSame(extra, pool.intern(new String("otra")));
+        assertSame(garden, pool.intern("hogar y jardín"));
+    }
+
+    @Test
+    public void isInStock_acceptsPooledAndOtherSpellings() {
+        assertTrue(Product.isInStock(Product.IN_STOCK));
+        assertFalse(Product.isInStock(Product.OUT_OF_STOCK));
+        assertTrue(Product.isInStock(new String("instock")));
+        assertFalse(Product.isInStock(null));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ep_melixa_api021225;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del planificador por prioridad y de la cancelación por scope
+ */
+public class TaskSchedulerTest {
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+    private TaskScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        // Un hilo ocupado hasta abrir la compuerta: lo demás queda en la cola
+        scheduler = new TaskScheduler(1, "test");
+        scheduler.submit(TaskScheduler.Priority.BACKGROUND, null, () -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void queuedTasks_runByPriorityThenArrival() throws Exception {
+        scheduler.submit(TaskScheduler.Priority.BACKGROUND, null, record("sync"));
+        scheduler.submit(TaskScheduler.Priority.VISIBLE, null, record("catálogo"));
+        scheduler.submit(TaskScheduler.Priority.USER, null, record("delete 1"));
+        scheduler.submit(TaskScheduler.Priority.VISIBLE, null, record("página"));
+        scheduler.submit(TaskScheduler.Priority.USER, null, record("delete 2"));
+        assertEquals(5, scheduler.getQueuedCount());
+
+        finish();
+        assertEquals(Arrays.asList("delete 1", "delete 2", "catálogo", "página", "sync"), ran);
+    }
+
+    @Test
+    public void cancelledScope_dropsQueuedAndLaterTasks() throws Exception {
+        TaskScope scope = new TaskScope();
+        TaskScheduler.Task queued = scheduler.submit(TaskScheduler.Priority.VISIBLE, scope, record("pantalla"));
+        scheduler.submit(TaskScheduler.Priority.VISIBLE, null, record("otra"));
+
+        scope.cancel();
+        assertTrue(queued.isCancelled());
+        assertEquals(1, scheduler.getQueuedCount());
+        TaskScheduler.Task late = scheduler.submit(TaskScheduler.Priority.USER, scope, record("tarde"));
+        assertTrue(late.isCancelled());
+
+        finish();
+        assertEquals(Collections.singletonList("otra"), ran);
+    }
+
+    @Test
+    public void guard_dropsDeliveriesAfterCancel() {
+        final List<Runnable> posted = new ArrayList<>();
+        TaskScope scope = new TaskScope();
+        Executor delivery = scope.guard(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                posted.add(command);
+            }
+        });
+
+        delivery.execute(record("antes"));
+        delivery.execute(record("después"));
+        posted.get(0).run();
+        scope.cancel();
+        // Ya estaba en la cola del hilo principal, pero la pantalla se cerró
+        posted.get(1).run();
+        assertEquals(Collections.singletonList("antes"), ran);
+    }
+
+    private Runnable record(final String name) {
+        return () -> ran.add(name);
+    }
+
+    private void finish() throws InterruptedException {
+        gate.countDown();
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
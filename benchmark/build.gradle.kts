@@ -0,0 +1,80 @@
+// Benchmarks JMH de las partes de :app que corren en la JVM (sin Android)
+// Ejecutar: ./gradlew :benchmark:jmh   (resultados en build/results/jmh/results.json)
+// También: :benchmark:standInServer (FakeStores local) y :benchmark:loadTest (carga sobre ApiClient)
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Se compilan las mismas fuentes de :app, solo las clases de Java puro
+// (FakeStoresServer viene de las pruebas de :app)
+sourceSets {
+    named("jmh") {
+        java {
+            srcDir("../app/src/main/java")
+            srcDir("../app/src/test/java")
+            include(
+                "com/example/ep_melixa_api021225/ApiClient.java",
+                "com/example/ep_melixa_api021225/ApiException.java",
+                "com/example/ep_melixa_api021225/ApiMetrics.java",
+                "com/example/ep_melixa_api021225/AdaptiveTimeout.java",
+                "com/example/ep_melixa_api021225/CircuitBreaker.java",
+                "com/example/ep_melixa_api021225/TaskScheduler.java",
+                "com/example/ep_melixa_api021225/TaskScope.java",
+                "com/example/ep_melixa_api021225/FakeStoresServer.java",
+                "com/example/ep_melixa_api021225/Product.java",
+                "com/example/ep_melixa_api021225/JsonStreamReader.java",
+                "com/example/ep_melixa_api021225/ProductStreamParser.java",
+                "com/example/ep_melixa_api021225/ProductStore.java",
+                "com/example/ep_melixa_api021225/ProductSearchIndex.java",
+                "com/example/ep_melixa_api021225/ProductDisplayCache.java",
+                "com/example/ep_melixa_api021225/ProductCodec.java",
+                "com/example/ep_melixa_api021225/CatalogSnapshot.java",
+                "com/example/ep_melixa_api021225/StringPool.java",
+                "com/example/ep_melixa_api021225/*Benchmark.java",
+                "com/example/ep_melixa_api021225/BenchmarkCatalog.java",
+                "com/example/ep_melixa_api021225/Options.java",
+                "com/example/ep_melixa_api021225/StandInServer.java",
+                "com/example/ep_melixa_api021225/LoadGenerator.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    // En Android org.json viene con la plataforma
+    jmhImplementation(libs.json)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    // Mismos parámetros en cada corrida para poder comparar resultados
+    fork.set(2)
+    warmupIterations.set(5)
+    iterations.set(5)
+    warmup.set("1s")
+    timeOnIteration.set("1s")
+    jvmArgs.addAll("-Xms1g", "-Xmx1g")
+    resultFormat.set("JSON")
+    includes.addAll(providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(emptyList()))
+}
+
+// Opciones con --args="..." (ver la documentación de cada clase)
+tasks.register<JavaExec>("standInServer") {
+    group = "application"
+    description = "Levanta un FakeStores local con catálogo, latencia y errores configurables"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.example.ep_melixa_api021225.StandInServer")
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "application"
+    description = "Mide llamadas por segundo y p50/p99 de ApiClient contra FakeStores"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.example.ep_melixa_api021225.LoadGenerator")
+}
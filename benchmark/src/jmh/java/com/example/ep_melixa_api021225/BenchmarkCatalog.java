@@ -0,0 +1,82 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Catálogos sintéticos para los benchmarks
+ *
+ * Se generan con una semilla fija: cada corrida mide exactamente los mismos
+ * datos. Los valores imitan a fakestoreapi (cuatro categorías, textos de
+ * largo variable, rating como objeto anidado).
+ */
+final class BenchmarkCatalog {
+
+    private static final long SEED = 42L;
+    private static final String[] CATEGORIES = {
+            "electronics", "jewelery", "men's clothing", "women's clothing"
+    };
+    private static final String[] WORDS = {
+            "algodón", "cuero", "premium", "portátil", "clásico", "compacto", "inalámbrico",
+            "resistente", "ligero", "edición", "especial", "para", "uso", "diario", "con", "garantía"
+    };
+
+    private BenchmarkCatalog() {
+    }
+
+    static List<Product> products(int count) {
+        Random random = new Random(SEED);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(String.valueOf(i + 1), words(random, 3 + random.nextInt(6)),
+                    words(random, 10 + random.nextInt(40)),
+                    Math.round(random.nextDouble() * 100000) / 100.0,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    "https://fakestoreapi.com/img/" + i + ".jpg");
+            product.setRating(Math.round(random.nextDouble() * 50) / 10.0);
+            product.setRatingCount(random.nextInt(1000));
+            product.setAvailability(random.nextInt(5) == 0 ? "OutOfStock" : "InStock");
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Objeto JSON tal como lo devuelve la API (toJSON no incluye el rating)
+     */
+    static JSONObject toApiJson(Product product) throws JSONException {
+        JSONObject json = product.toJSON();
+        JSONObject rating = new JSONObject();
+        rating.put("rate", product.getRating());
+        rating.put("count", product.getRatingCount());
+        json.put("rating", rating);
+        return json;
+    }
+
+    /**
+     * Cuerpo de GET /products en UTF-8
+     */
+    static byte[] json(List<Product> products) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (Product product : products) {
+            array.put(toApiJson(product));
+        }
+        return array.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
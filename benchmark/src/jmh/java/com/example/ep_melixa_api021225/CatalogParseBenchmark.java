@@ -0,0 +1,70 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación del catálogo completo
+ *
+ * streamParser es el camino de ProductRepository; jsonArray es el parseo
+ * original con org.json, como referencia. codec mide el formato binario
+ * (ProductCodec) usado en el estado guardado y el snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CatalogParseBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws JSONException, IOException {
+        List<Product> products = BenchmarkCatalog.products(size);
+        json = BenchmarkCatalog.json(products);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProductCodec.writeProducts(out, products);
+        binary = out.toByteArray();
+    }
+
+    @Benchmark
+    public int streamParser(final Blackhole blackhole) throws IOException {
+        return ProductStreamParser.parse(new ByteArrayInputStream(json), new ProductStreamParser.Listener() {
+            @Override
+            public void onProduct(Product product) {
+                blackhole.consume(product);
+            }
+        });
+    }
+
+    @Benchmark
+    public void jsonArray(Blackhole blackhole) throws JSONException {
+        JSONArray array = new JSONArray(new String(json, StandardCharsets.UTF_8));
+        for (int i = 0; i < array.length(); i++) {
+            blackhole.consume(new Product(array.getJSONObject(i)));
+        }
+    }
+
+    @Benchmark
+    public List<Product> codec() throws IOException {
+        return ProductCodec.decode(binary);
+    }
+}
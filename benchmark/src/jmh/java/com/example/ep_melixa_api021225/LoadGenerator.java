@@ -0,0 +1,341 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Generador de carga para ApiClient contra FakeStores (local o remoto)
+ *
+ * Varios hilos repiten durante un tiempo fijo una mezcla de operaciones:
+ * GET del catálogo completo leído con ProductStreamParser (como la app),
+ * POST de productos nuevos, PUT y DELETE de productos existentes. Al final
+ * informa por operación las llamadas por segundo, p50/p99/máximo exactos
+ * (no por cubetas) y los errores por causa, seguido del dump() de
+ * ApiMetrics con el detalle por fase.
+ *
+ * Ejecutar:
+ *   ./gradlew :benchmark:loadTest --args="--threads 16 --seconds 30 --products 5000 --latency 50 --jitter 50"
+ *   ./gradlew :benchmark:loadTest --args="--url http://192.168.0.10:8080/api --threads 8"
+ *
+ * Opciones:
+ *   --url         API a medir; sin ella se levanta un FakeStoresServer local
+ *   --threads     hilos concurrentes (8)
+ *   --seconds     duración medida (20)
+ *   --warmup      segundos previos que no se cuentan (5)
+ *   --mix         pesos de GET,POST,PUT,DELETE (70,10,10,10)
+ *   --attempts    intentos por llamada del ApiClient (ApiClient.DEFAULT_MAX_ATTEMPTS)
+ *   --products, --latency, --jitter, --error-rate, --error-status
+ *                 configuran el servidor local (ver StandInServer)
+ */
+public final class LoadGenerator {
+
+    private static final ApiMetrics.Operation[] OPERATIONS = {
+            ApiMetrics.Operation.GET, ApiMetrics.Operation.POST,
+            ApiMetrics.Operation.PUT, ApiMetrics.Operation.DELETE
+    };
+
+    private final ApiClient client;
+    private final int[] weights;
+    // Ids existentes: PUT toma el primero, DELETE quita el último, POST agrega
+    private final ConcurrentLinkedDeque<String> ids = new ConcurrentLinkedDeque<>();
+
+    LoadGenerator(ApiClient client, int[] weights) {
+        this.client = client;
+        this.weights = weights;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        FakeStoresServer server = null;
+        String url = options.get("url", null);
+        if (url == null) {
+            server = new FakeStoresServer();
+            server.seed(options.getInt("products", 1000));
+            server.setLatency(options.getLong("latency", 0), options.getLong("jitter", 0));
+            server.setErrorRate(options.getDouble("error-rate", 0), options.getInt("error-status", 503));
+            server.start();
+            url = server.getBaseUrl();
+        }
+
+        int threads = options.getInt("threads", 8);
+        // Una conexión ociosa por worker (el pool es del proceso; por defecto guarda 5)
+        System.setProperty("http.maxConnections", String.valueOf(threads));
+        ApiClient client = new ApiClient(url, ApiClient.DEFAULT_CONNECT_TIMEOUT,
+                ApiClient.DEFAULT_READ_TIMEOUT, 1);
+        client.setRetryPolicy(options.getInt("attempts", ApiClient.DEFAULT_MAX_ATTEMPTS),
+                ApiClient.DEFAULT_RETRY_DELAY, ApiClient.DEFAULT_MAX_RETRY_DELAY);
+        try {
+            LoadGenerator generator = new LoadGenerator(client, parseMix(options.get("mix", "70,10,10,10")));
+            System.out.println("Carga contra " + url + " con " + threads + " hilos");
+            Worker[] workers = generator.run(threads, options.getLong("warmup", 5) * 1000,
+                    options.getLong("seconds", 20) * 1000);
+            System.out.print(report(workers, options.getLong("seconds", 20)));
+            System.out.println();
+            System.out.print(client.getMetrics().dump());
+        } finally {
+            client.shutdown();
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    // ========== CARGA ==========
+
+    /**
+     * Lanza los hilos y espera a que terminen; devuelve lo que midió cada uno
+     */
+    Worker[] run(int threads, long warmupMillis, long durationMillis) throws IOException, InterruptedException {
+        // Ids iniciales para PUT y DELETE
+        list(true);
+
+        long measureFrom = System.nanoTime() + warmupMillis * 1000000;
+        long end = measureFrom + durationMillis * 1000000;
+        Worker[] workers = new Worker[threads];
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(measureFrom, end, i);
+            running[i] = new Thread(workers[i], "Load-" + i);
+            running[i].start();
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+        return workers;
+    }
+
+    private ApiMetrics.Operation pick(Random random) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return OPERATIONS[i];
+            }
+        }
+        return OPERATIONS[0];
+    }
+
+    private void perform(ApiMetrics.Operation operation, Random random) throws IOException {
+        switch (operation) {
+            case GET:
+                list(false);
+                break;
+            case POST:
+                create(random);
+                break;
+            case PUT:
+                String updated = ids.peekFirst();
+                if (updated == null) {
+                    create(random);
+                } else {
+                    update(updated, random);
+                }
+                break;
+            case DELETE:
+                String deleted = ids.pollLast();
+                if (deleted == null) {
+                    create(random);
+                } else {
+                    delete(deleted);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(operation.toString());
+        }
+    }
+
+    private int list(final boolean collectIds) throws IOException {
+        return client.execute("GET", "/products", null, new ApiClient.ResponseHandler<Integer>() {
+            @Override
+            public Integer handle(int code, InputStream body, HttpURLConnection conn) throws IOException {
+                if (code >= 400) {
+                    throw new ApiException(code, "Error al obtener productos");
+                }
+                return ProductStreamParser.parse(body, new ProductStreamParser.Listener() {
+                    @Override
+                    public void onProduct(Product product) {
+                        if (collectIds) {
+                            ids.add(product.getId());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void create(Random random) throws IOException {
+        ApiClient.Response response = client.execute("POST", "/products", newProduct(random).toString());
+        if (!response.isSuccessful()) {
+            throw new ApiException(response.getCode(), "Error al crear producto");
+        }
+        ids.add(new JSONObject(response.getBody()).getString("id"));
+    }
+
+    private void update(String id, Random random) throws IOException {
+        ApiClient.Response response = client.execute("PUT", "/products/" + id, newProduct(random).toString());
+        if (!response.isSuccessful()) {
+            throw new ApiException(response.getCode(), "Error al actualizar producto");
+        }
+    }
+
+    private void delete(String id) throws IOException {
+        ApiClient.Response response = client.execute("DELETE", "/products/" + id, null);
+        if (!response.isSuccessful()) {
+            throw new ApiException(response.getCode(), "Error al eliminar producto");
+        }
+    }
+
+    private static JSONObject newProduct(Random random) {
+        Product product = new Product("Producto de carga " + random.nextInt(100000),
+                "Creado por LoadGenerator", Math.round(random.nextDouble() * 100000) / 100.0, "electronics");
+        return product.toJSON();
+    }
+
+    // ========== HILOS ==========
+
+    /**
+     * Un hilo de carga; sus resultados solo los lee main() después del join
+     */
+    class Worker implements Runnable {
+        private final long measureFrom;
+        private final long end;
+        private final Random random;
+        final Latencies[] latencies = new Latencies[OPERATIONS.length];
+        final long[][] errors = new long[OPERATIONS.length][ApiMetrics.ErrorCause.values().length];
+
+        Worker(long measureFrom, long end, int seed) {
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.random = new Random(seed);
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Latencies();
+            }
+        }
+
+        @Override
+        public void run() {
+            long start;
+            while ((start = System.nanoTime()) < end) {
+                ApiMetrics.Operation operation = pick(random);
+                ApiMetrics.ErrorCause error = null;
+                try {
+                    perform(operation, random);
+                } catch (IOException | JSONException e) {
+                    error = ApiMetrics.ErrorCause.of(e);
+                }
+                if (start < measureFrom) {
+                    continue;
+                }
+                // OPERATIONS sigue el orden de ApiMetrics.Operation
+                int index = operation.ordinal();
+                if (error != null) {
+                    errors[index][error.ordinal()]++;
+                } else {
+                    latencies[index].add(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Latencias exactas en ns (arreglo que crece, sin cajas de Long)
+     */
+    static class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Percentil (0..1) en ms; ordena el arreglo
+         */
+        double percentileMillis(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            Arrays.sort(values, 0, size);
+            int index = (int) Math.ceil(percentile * size) - 1;
+            return values[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    // ========== REPORTE ==========
+
+    static String report(Worker[] workers, long seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-8s %9s %9s %9s %9s %9s %8s%n",
+                "op", "ok", "ops/s", "p50 ms", "p99 ms", "max ms", "errores"));
+        long totalOk = 0;
+        long totalErrors = 0;
+        StringBuilder causes = new StringBuilder();
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            Latencies merged = new Latencies();
+            long errors = 0;
+            for (Worker worker : workers) {
+                merged.addAll(worker.latencies[i]);
+            }
+            for (ApiMetrics.ErrorCause cause : ApiMetrics.ErrorCause.values()) {
+                long count = 0;
+                for (Worker worker : workers) {
+                    count += worker.errors[i][cause.ordinal()];
+                }
+                if (count > 0) {
+                    causes.append("  ").append(OPERATIONS[i]).append(" error ").append(cause)
+                            .append(": ").append(count).append('\n');
+                }
+                errors += count;
+            }
+            if (merged.size() == 0 && errors == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%-8s %9d %9.1f %9.2f %9.2f %9.2f %8d%n",
+                    OPERATIONS[i], merged.size(), merged.size() / (double) seconds,
+                    merged.percentileMillis(0.50), merged.percentileMillis(0.99),
+                    merged.percentileMillis(1.0), errors));
+            totalOk += merged.size();
+            totalErrors += errors;
+        }
+        out.append(String.format(Locale.ROOT, "total: %.1f ops/s correctas, %d errores en %d s%n",
+                totalOk / (double) seconds, totalErrors, seconds));
+        out.append(causes);
+        return out.toString();
+    }
+
+    private static int[] parseMix(String mix) {
+        String[] parts = mix.split(",");
+        if (parts.length != OPERATIONS.length) {
+            throw new IllegalArgumentException("--mix necesita " + OPERATIONS.length + " pesos: " + mix);
+        }
+        int[] weights = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+        }
+        return weights;
+    }
+}
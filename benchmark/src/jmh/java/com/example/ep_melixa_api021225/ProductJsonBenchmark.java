@@ -0,0 +1,46 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión de un producto desde y hacia JSONObject
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductJsonBenchmark {
+
+    private JSONObject json;
+    private Product product;
+
+    @Setup
+    public void setUp() throws JSONException {
+        product = BenchmarkCatalog.products(1).get(0);
+        json = BenchmarkCatalog.toApiJson(product);
+    }
+
+    @Benchmark
+    public Product fromJsonObject() throws JSONException {
+        return new Product(json);
+    }
+
+    @Benchmark
+    public JSONObject toJson() throws JSONException {
+        return product.toJSON();
+    }
+
+    @Benchmark
+    public String toJsonString() throws JSONException {
+        // Lo que se envía en POST/PUT
+        return product.toJSON().toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ep_melixa_api021225;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lo que hace la lista de productos después de descargar el catálogo:
+ * ordenar, filtrar y buscar (ProductStore, ProductSearchIndex) y armar
+ * los textos de cada fila (ProductDisplayCache)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductListBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Product> products;
+    private ProductStore store;
+    private ProductSearchIndex index;
+    private ProductSearchIndex.Query textQuery;
+    private ProductSearchIndex.Query filterQuery;
+    private int[] rows;             // sortRows y selectByPrice lo sobrescriben
+    private ProductDisplayCache warmCache;
+
+    @Setup
+    public void setUp() {
+        products = BenchmarkCatalog.products(size);
+        store = new ProductStore();
+        store.replaceAll(products);
+        index = new ProductSearchIndex();
+        index.rebuild(products);
+        rows = new int[size];
+
+        textQuery = new ProductSearchIndex.Query();
+        textQuery.setText("inalam port");
+        filterQuery = new ProductSearchIndex.Query();
+        filterQuery.setCategory("electronics");
+        filterQuery.setInStock(Boolean.TRUE);
+        filterQuery.setPriceRange(100, 500);
+
+        warmCache = new ProductDisplayCache(size, Locale.US);
+        for (Product product : products) {
+            warmCache.get(product);
+        }
+    }
+
+    // ========== ORDEN Y FILTROS ==========
+
+    @Benchmark
+    public int[] sortByPrice() {
+        store.sortRows(ProductStore.ORDER_PRICE_ASC, rows);
+        return rows;
+    }
+
+    @Benchmark
+    public int[] sortByRating() {
+        store.sortRows(ProductStore.ORDER_RATING_DESC, rows);
+        return rows;
+    }
+
+    @Benchmark
+    public List<Product> snapshotByPrice() {
+        // Lo que entrega el store al adapter al cambiar el orden
+        return store.snapshot(ProductStore.ORDER_PRICE_ASC);
+    }
+
+    @Benchmark
+    public int selectByPrice() {
+        return store.selectByPrice(100, 500, rows);
+    }
+
+    @Benchmark
+    public List<Product> searchText() {
+        return index.search(textQuery);
+    }
+
+    @Benchmark
+    public List<Product> searchFilters() {
+        return index.search(filterQuery);
+    }
+
+    // ========== TEXTOS DE LAS FILAS ==========
+
+    @Benchmark
+    public void formatCold(Blackhole blackhole) {
+        // Primera vez que se muestra cada fila
+        ProductDisplayCache cache = new ProductDisplayCache(size, Locale.US);
+        for (Product product : products) {
+            blackhole.consume(cache.get(product));
+        }
+    }
+
+    @Benchmark
+    public void formatWarm(Blackhole blackhole) {
+        // Volver a mostrar filas ya formateadas (scroll hacia atrás)
+        for (Product product : products) {
+            blackhole.consume(warmCache.get(product));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ep_melixa_api021225;
+
+import java.io.IOException;
+
+/**
+ * FakeStores local para probar la app sin depender del servidor real
+ *
+ * Ejecutar:
+ *   ./gradlew :benchmark:standInServer --args="--port 8080 --products 5000 --latency 80 --jitter 40 --error-rate 0.02"
+ * y compilar la app con -PapiBaseUrl=http://10.0.2.2:8080/api (el emulador
+ * ve al equipo como 10.0.2.2; el build debug permite HTTP sin TLS hacia ahí).
+ *
+ * Opciones:
+ *   --host        dirección donde escuchar (0.0.0.0)
+ *   --port        puerto (8080)
+ *   --products    productos sintéticos en el catálogo (1000)
+ *   --latency     demora mínima de cada respuesta en ms (0)
+ *   --jitter      demora extra al azar, entre 0 y este valor en ms (0)
+ *   --error-rate  fracción de respuestas con error, 0..1 (0)
+ *   --error-status código de esas respuestas (503)
+ */
+public final class StandInServer {
+
+    private StandInServer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        FakeStoresServer server = new FakeStoresServer(options.get("host", "0.0.0.0"),
+                options.getInt("port", 8080));
+        int products = options.getInt("products", 1000);
+        server.seed(products);
+        server.setLatency(options.getLong("latency", 0), options.getLong("jitter", 0));
+        server.setErrorRate(options.getDouble("error-rate", 0), options.getInt("error-status", 503));
+        server.start();
+
+        System.out.println("FakeStores local en " + server.getBaseUrl() + " con " + products
+                + " productos (Ctrl+C para terminar)");
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.stop();
+            }
+        }));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ep_melixa_api021225;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Categoría y disponibilidad compartidas (StringPool) contra un String por fila
+ *
+ * parsePooled es el camino de ProductStreamParser; parsePlain lee igual pero
+ * sin pool, como antes. Con -prof gc, gc.alloc.rate.norm muestra los bytes
+ * por catálogo que se ahorran (dos Strings menos por producto, que además
+ * ya no quedan retenidos en la lista). inStock* recorre la disponibilidad
+ * de cada fila como al dibujarla: con valores del pool la comparación es
+ * por referencia.
+ *
+ * Ejecutar: ./gradlew :benchmark:jmh -PjmhIncludes=StringPoolBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StringPoolBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private byte[] json;
+    private String[] pooledAvailability;
+    private String[] plainAvailability;
+
+    @Setup
+    public void setUp() throws JSONException, IOException {
+        json = BenchmarkCatalog.json(BenchmarkCatalog.products(size));
+        List<Product> pooled = parse(StringPool.getDefault());
+        List<Product> plain = parse(null);
+        pooledAvailability = new String[size];
+        plainAvailability = new String[size];
+        for (int i = 0; i < size; i++) {
+            pooledAvailability[i] = pooled.get(i).getAvailability();
+            plainAvailability[i] = plain.get(i).getAvailability();
+        }
+    }
+
+    @Benchmark
+    public List<Product> parsePooled() throws IOException {
+        return parse(StringPool.getDefault());
+    }
+
+    @Benchmark
+    public List<Product> parsePlain() throws IOException {
+        return parse(null);
+    }
+
+    @Benchmark
+    public int inStockPooled() {
+        return countInStock(pooledAvailability);
+    }
+
+    @Benchmark
+    public int inStockPlain() {
+        return countInStock(plainAvailability);
+    }
+
+    private List<Product> parse(StringPool pool) throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(
+                new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+        List<Product> products = new ArrayList<>(size);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            products.add(new Product(reader, Product.NO_LIMIT, pool));
+        }
+        reader.endArray();
+        return products;
+    }
+
+    private static int countInStock(String[] availability) {
+        int count = 0;
+        for (String value : availability) {
+            if (Product.isInStock(value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "EP_Melixa_Api021225"
 include(":app")
+include(":benchmark")
  
\ No newline at end of file